@@ -0,0 +1,93 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.openshift.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jgit.util.FileUtils;
+import org.jboss.arquillian.container.openshift.archive.ArchiveExporter;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.exporter.ZipExporter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures copying of a deployment into the deployments directory of a repository, both by plain ShrinkWrap export and
+ * by {@link ArchiveExporter}, which computes the content hash while writing
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ArchiveExportBenchmark {
+
+    @Param({ "war", "ear" })
+    private String type;
+
+    @Param({ "10", "100", "1000" })
+    private int classes;
+
+    private Archive<?> archive;
+
+    private File directory;
+
+    private File target;
+
+    @Setup
+    public void createArchive() throws IOException {
+        archive = SyntheticArchives.create(type, classes);
+
+        directory = File.createTempFile("arquillian-benchmark", "");
+        directory.delete();
+        File deployments = new File(directory, "deployments");
+        FileUtils.mkdirs(deployments);
+        target = new File(deployments, archive.getName());
+    }
+
+    @TearDown
+    public void deleteDirectory() throws IOException {
+        FileUtils.delete(directory, FileUtils.RECURSIVE);
+    }
+
+    @Benchmark
+    public File zipExporter() {
+        archive.as(ZipExporter.class).exportTo(target, true);
+        return target;
+    }
+
+    @Benchmark
+    public String archiveExporter() throws IOException {
+        return ArchiveExporter.exportTo(archive, target);
+    }
+}
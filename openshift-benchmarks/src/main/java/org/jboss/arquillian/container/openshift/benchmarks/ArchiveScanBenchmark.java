@@ -0,0 +1,76 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.openshift.benchmarks;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.Servlet;
+
+import org.jboss.arquillian.container.openshift.archive.ArchiveUtil;
+import org.jboss.arquillian.container.openshift.archive.ClassFileInfo;
+import org.jboss.shrinkwrap.api.Archive;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures lookup of servlet classes in deployments of growing size, by loading them and by reading their class files
+ * without loading, which is how servlet names of a deployment are found
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ArchiveScanBenchmark {
+
+    @Param({ "war", "ear" })
+    private String type;
+
+    @Param({ "10", "100", "1000" })
+    private int classes;
+
+    private Archive<?> archive;
+
+    @Setup
+    public void createArchive() {
+        archive = SyntheticArchives.create(type, classes);
+    }
+
+    @Benchmark
+    public Collection<Class<Servlet>> definedClassesOf() {
+        return ArchiveUtil.getDefinedClassesOf(archive, Servlet.class);
+    }
+
+    @Benchmark
+    public Collection<ClassFileInfo> definedClassInfosOf() {
+        return ArchiveUtil.getDefinedClassInfosOf(archive, Servlet.class.getName());
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.openshift.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.arquillian.container.openshift.GearDriver;
+import org.jboss.arquillian.container.openshift.OpenShiftContainerConfiguration;
+import org.jboss.arquillian.container.openshift.simulator.LocalGear;
+import org.jboss.arquillian.container.spi.ConfigurationException;
+import org.jboss.arquillian.container.spi.client.container.DeploymentException;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the whole deployment round trip of a gear, i.e. export, commit, push, deployment and readiness wait,
+ * against a {@link LocalGear}. The gear deploys each archive after {@code deploymentDelayInMillis}, so results are
+ * reproducible and do not depend on the network.
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class GearLifecycleBenchmark {
+
+    private static final String MARKER_PATH = "META-INF/benchmark.txt";
+
+    @Param({ "war", "ear" })
+    private String type;
+
+    @Param({ "10", "1000" })
+    private int classes;
+
+    @Param({ "false", "true" })
+    private boolean bareRepository;
+
+    @Param({ "0", "200" })
+    private long deploymentDelayInMillis;
+
+    private LocalGear localGear;
+
+    private GearDriver gear;
+
+    private Archive<?> archive;
+
+    private long invocation;
+
+    @Setup
+    public void startGear() throws IOException, ConfigurationException {
+        localGear = new LocalGear("benchmark").start();
+        localGear.setDeploymentDelayInMillis(deploymentDelayInMillis);
+
+        OpenShiftContainerConfiguration configuration = localGear.configure(new OpenShiftContainerConfiguration());
+        configuration.setBareRepository(bareRepository);
+        configuration.validate();
+
+        gear = new GearDriver(configuration);
+        gear.start();
+
+        archive = SyntheticArchives.create(type, classes);
+    }
+
+    // every deployment has a different content, as it would in a test suite
+    @Setup(Level.Invocation)
+    public void changeContent() {
+        archive.add(new StringAsset(String.valueOf(invocation++)), MARKER_PATH);
+    }
+
+    @TearDown
+    public void stopGear() throws IOException {
+        try {
+            gear.stop();
+        } finally {
+            localGear.stop();
+        }
+    }
+
+    @Benchmark
+    public void redeploy() throws DeploymentException {
+        gear.redeploy(archive);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.openshift.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.util.FileUtils;
+import org.jboss.arquillian.container.openshift.util.GitUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures committing of a deployment with {@link GitUtil} against a local bare repository, which stands for the
+ * repository of the gear. Both a clone with a working tree and a bare clone committing in memory are measured, the
+ * former with and without pushing into the origin.
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class GitCommitBenchmark {
+
+    private static final PersonIdent IDENTIFICATION = new PersonIdent("Arquillian", "arquillian@jboss.org");
+
+    private static final String DEPLOYMENT_PATH = "deployments/benchmark.war";
+
+    @Param({ "10240", "1048576" })
+    private int size;
+
+    private File directory;
+
+    private GitUtil clone;
+
+    private GitUtil bareClone;
+
+    private byte[] content;
+
+    private int invocation;
+
+    @Setup
+    public void createRepositories() throws IOException, GitAPIException {
+        directory = File.createTempFile("arquillian-benchmark", "");
+        directory.delete();
+
+        File origin = new File(directory, "origin.git");
+        Git.init().setBare(true).setDirectory(origin).call().getRepository().close();
+
+        // the origin needs a branch to be cloned
+        Git seed = Git.cloneRepository().setURI(origin.toURI().toString()).setDirectory(new File(directory, "seed"))
+                .call();
+        GitUtil seedUtil = new GitUtil(seed);
+        seedUtil.begin().add(".openshift/markers/skip_maven_build", new byte[0]).commit(IDENTIFICATION, "Initial");
+        seedUtil.push(null);
+        seedUtil.close();
+
+        clone = new GitUtil(Git.cloneRepository().setURI(origin.toURI().toString())
+                .setDirectory(new File(directory, "clone")).call());
+        bareClone = new GitUtil(Git.cloneRepository().setURI(origin.toURI().toString()).setBare(true)
+                .setDirectory(new File(directory, "bare.git")).call());
+
+        content = new byte[size];
+    }
+
+    // every commit changes the deployment, as it would be in a test suite
+    @Setup(Level.Invocation)
+    public void changeContent() {
+        content[invocation++ % size]++;
+    }
+
+    @TearDown
+    public void deleteRepositories() throws IOException {
+        clone.close();
+        bareClone.close();
+        FileUtils.delete(directory, FileUtils.RECURSIVE);
+    }
+
+    @Benchmark
+    public void commit() {
+        clone.begin().add(DEPLOYMENT_PATH, content).commit(IDENTIFICATION, "Deploy");
+    }
+
+    @Benchmark
+    public void commitInMemory() {
+        bareClone.begin().add(DEPLOYMENT_PATH, content).commit(IDENTIFICATION, "Deploy");
+    }
+
+    @Benchmark
+    public void commitAndPush() {
+        clone.begin().add(DEPLOYMENT_PATH, content).commit(IDENTIFICATION, "Deploy");
+        clone.push(null);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.openshift.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.arquillian.container.openshift.OpenShiftContainerConfiguration;
+import org.jboss.arquillian.container.openshift.ProtocolMetaDataParser;
+import org.jboss.arquillian.container.spi.client.protocol.metadata.ProtocolMetaData;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures creation of protocol metadata. Parsed servlets are cached by content digest, so unless {@code cached} is
+ * set, the content of the deployment is changed before each invocation to force scanning.
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ProtocolMetaDataParserBenchmark {
+
+    private static final String MARKER_PATH = "META-INF/benchmark.txt";
+
+    @Param({ "war", "ear" })
+    private String type;
+
+    @Param({ "10", "100", "1000" })
+    private int classes;
+
+    @Param({ "false", "true" })
+    private boolean cached;
+
+    private ProtocolMetaDataParser parser;
+
+    private Archive<?> archive;
+
+    private long invocation;
+
+    @Setup
+    public void createArchive() {
+        OpenShiftContainerConfiguration configuration = new OpenShiftContainerConfiguration();
+        parser = new ProtocolMetaDataParser(configuration);
+        archive = SyntheticArchives.create(type, classes);
+    }
+
+    @Setup(Level.Invocation)
+    public void changeContent() {
+        if (!cached) {
+            archive.add(new StringAsset(String.valueOf(invocation++)), MARKER_PATH);
+        }
+    }
+
+    @Benchmark
+    public ProtocolMetaData parse() {
+        return parser.parse(archive);
+    }
+}
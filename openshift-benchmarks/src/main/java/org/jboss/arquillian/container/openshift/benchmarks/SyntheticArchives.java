@@ -0,0 +1,125 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.openshift.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.ArchivePaths;
+import org.jboss.shrinkwrap.api.Filters;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.spec.EnterpriseArchive;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+
+/**
+ * Creates deployments of given size for benchmarks. Archives are filled with real class files taken from JGit, so
+ * scanning has to parse and resolve type hierarchy of each of them, and contain a few servlets to be found.
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class SyntheticArchives {
+
+    private static final String CLASS_POOL_PACKAGE = "org.eclipse.jgit";
+
+    private static List<Node> classPool;
+
+    /**
+     * Creates a deployment
+     *
+     * @param type either {@code war} or {@code ear}
+     * @param classes the number of classes in the deployment
+     * @return the deployment
+     */
+    public static Archive<?> create(String type, int classes) {
+        if ("war".equals(type)) {
+            return war("benchmark.war", classes);
+        } else if ("ear".equals(type)) {
+            return ear("benchmark.ear", classes);
+        }
+        throw new IllegalArgumentException("Unknown archive type " + type + ", expected war or ear");
+    }
+
+    /**
+     * Creates a web archive with servlets and classes in WEB-INF/classes
+     *
+     * @param name the name of the archive
+     * @param classes the number of classes besides servlets
+     * @return the web archive
+     */
+    public static WebArchive war(String name, int classes) {
+        WebArchive war = ShrinkWrap.create(WebArchive.class, name).addClasses(AnnotatedServlet.class,
+                PlainServlet.class);
+        for (Node node : getClasses(0, classes)) {
+            war.add(node.getAsset(), ArchivePaths.create("WEB-INF/classes", node.getPath().get()));
+        }
+        return war;
+    }
+
+    /**
+     * Creates an enterprise archive with two web archives and an EJB module, classes are split evenly among them
+     *
+     * @param name the name of the archive
+     * @param classes the number of classes besides servlets
+     * @return the enterprise archive
+     */
+    public static EnterpriseArchive ear(String name, int classes) {
+        int perModule = classes / 3;
+
+        JavaArchive ejbs = ShrinkWrap.create(JavaArchive.class, "ejbs.jar");
+        for (Node node : getClasses(2 * perModule, classes - 2 * perModule)) {
+            ejbs.add(node.getAsset(), node.getPath());
+        }
+
+        return ShrinkWrap.create(EnterpriseArchive.class, name).addAsModule(war("first.war", perModule))
+                .addAsModule(war("second.war", perModule)).addAsModule(ejbs);
+    }
+
+    // different offsets give different classes, so modules of an EAR do not share them
+    private static List<Node> getClasses(int offset, int count) {
+        List<Node> pool = getClassPool();
+        List<Node> classes = new ArrayList<Node>(count);
+        for (int i = 0; i < count; i++) {
+            classes.add(pool.get((offset + i) % pool.size()));
+        }
+        return classes;
+    }
+
+    private static synchronized List<Node> getClassPool() {
+        if (classPool == null) {
+            JavaArchive jgit = ShrinkWrap.create(JavaArchive.class).addPackages(true, CLASS_POOL_PACKAGE);
+            Map<ArchivePath, Node> content = jgit.getContent(Filters.include(".*\\.class$"));
+
+            List<Node> nodes = new ArrayList<Node>(content.values());
+            Collections.sort(nodes, new Comparator<Node>() {
+                @Override
+                public int compare(Node o1, Node o2) {
+                    return o1.getPath().get().compareTo(o2.getPath().get());
+                }
+            });
+            classPool = nodes;
+        }
+        return classPool;
+    }
+}
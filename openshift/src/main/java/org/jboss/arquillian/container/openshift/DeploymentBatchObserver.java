@@ -0,0 +1,136 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.openshift;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jboss.arquillian.container.spi.Container;
+import org.jboss.arquillian.container.spi.ContainerRegistry;
+import org.jboss.arquillian.container.spi.client.container.DeploymentException;
+import org.jboss.arquillian.container.spi.client.deployment.Deployment;
+import org.jboss.arquillian.container.spi.client.deployment.DeploymentDescription;
+import org.jboss.arquillian.container.spi.client.deployment.DeploymentScenario;
+import org.jboss.arquillian.container.spi.context.ContainerContext;
+import org.jboss.arquillian.container.spi.event.DeployManagedDeployments;
+import org.jboss.arquillian.container.spi.event.UnDeployManagedDeployments;
+import org.jboss.arquillian.core.api.Instance;
+import org.jboss.arquillian.core.api.annotation.Inject;
+import org.jboss.arquillian.core.api.annotation.Observes;
+
+/**
+ * Wraps managed deployments and undeployments of a test class into a batch, so all of them are pushed to the OpenShift
+ * instance at once.
+ *
+ * <p>
+ * Before managed deployments of a test class are deployed, each OpenShift container is told which of them belong to
+ * the batch. The container pushes the batch and waits for it while deploying the last of them, so a failure is reported
+ * by the deployment itself. Deployments expecting an exception are never batched, so {@code @ShouldThrowException}
+ * sees the failure of the very deployment. Managed undeployments are batched in the same way. Anything left in the
+ * batch, e.g. if a batched deployment was not deployed at all, is pushed after all managed deployments are processed.
+ * </p>
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class DeploymentBatchObserver {
+
+    @Inject
+    private Instance<ContainerRegistry> registry;
+
+    @Inject
+    private Instance<ContainerContext> containerContext;
+
+    @Inject
+    private Instance<DeploymentScenario> scenario;
+
+    public void startDeployBatch(@Observes(precedence = 100) DeployManagedDeployments event) {
+        startBatch(false);
+    }
+
+    public void finishDeployBatch(@Observes(precedence = -100) DeployManagedDeployments event)
+            throws DeploymentException {
+        finishBatch();
+    }
+
+    public void startUndeployBatch(@Observes(precedence = 100) UnDeployManagedDeployments event) {
+        startBatch(true);
+    }
+
+    public void finishUndeployBatch(@Observes(precedence = -100) UnDeployManagedDeployments event)
+            throws DeploymentException {
+        finishBatch();
+    }
+
+    private void startBatch(boolean undeploy) {
+        ContainerRegistry containerRegistry = registry.get();
+        DeploymentScenario deploymentScenario = scenario.get();
+        if (containerRegistry == null || deploymentScenario == null) {
+            return;
+        }
+
+        for (Container container : containerRegistry.getContainers()) {
+            if (!(container.getDeployableContainer() instanceof OpenShiftContainer)) {
+                continue;
+            }
+            List<String> names = getBatchedNames(deploymentScenario, container.getName(), undeploy);
+            containerContext.get().activate(container.getName());
+            try {
+                ((OpenShiftContainer) container.getDeployableContainer()).startBatch(names);
+            } finally {
+                containerContext.get().deactivate();
+            }
+        }
+    }
+
+    private void finishBatch() throws DeploymentException {
+        ContainerRegistry containerRegistry = registry.get();
+        if (containerRegistry == null) {
+            return;
+        }
+
+        for (Container container : containerRegistry.getContainers()) {
+            if (!(container.getDeployableContainer() instanceof OpenShiftContainer)) {
+                continue;
+            }
+            containerContext.get().activate(container.getName());
+            try {
+                ((OpenShiftContainer) container.getDeployableContainer()).finishBatch();
+            } finally {
+                containerContext.get().deactivate();
+            }
+        }
+    }
+
+    // names of managed archives targeting the container, only deployed ones are undeployed
+    private List<String> getBatchedNames(DeploymentScenario scenario, String containerName, boolean undeploy) {
+        List<String> names = new ArrayList<String>();
+        for (Deployment deployment : scenario.deployments()) {
+            DeploymentDescription description = deployment.getDescription();
+            if (!description.managed() || !description.isArchiveDeployment()
+                    || !containerName.equals(description.getTarget().getName())) {
+                continue;
+            }
+            if (undeploy ? !deployment.isDeployed() : description.getExpectedException() != null) {
+                continue;
+            }
+            names.add(description.testable() && description.getTestableArchive() != null ? description
+                    .getTestableArchive().getName() : description.getArchive().getName());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,379 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.openshift;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.eclipse.jgit.transport.CredentialsProvider;
+import org.jboss.arquillian.container.openshift.metrics.Measurement;
+import org.jboss.arquillian.container.openshift.metrics.Metrics;
+import org.jboss.arquillian.container.openshift.metrics.Phase;
+import org.jboss.arquillian.container.openshift.ping.AS7PingArchive;
+import org.jboss.arquillian.container.openshift.ping.DeploymentStatus;
+import org.jboss.arquillian.container.spi.client.container.DeploymentException;
+import org.jboss.arquillian.container.spi.client.protocol.metadata.ProtocolMetaData;
+import org.jboss.shrinkwrap.api.Archive;
+
+/**
+ * A single OpenShift application deployments are pushed to, together with its local repository.
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+class Gear {
+    private static final Logger log = Logger.getLogger(Gear.class.getName());
+
+    private final OpenShiftContainerConfiguration configuration;
+
+    private final CredentialsProvider credentialsProvider;
+
+    private OpenShiftRepository repository;
+
+    // ping archive stays deployed from the first deployment until the gear is stopped
+    private boolean pingDeployed;
+
+    private boolean started;
+
+    // content hashes of archives the server confirmed as deployed, a pushed archive might have failed to deploy
+    private final Map<String, String> verifiedHashes = new HashMap<String, String>();
+
+    private final Metrics metrics;
+
+    /**
+     * Creates a gear
+     *
+     * @param configuration the configuration of the application
+     * @param credentialsProvider the credentials provider
+     */
+    Gear(OpenShiftContainerConfiguration configuration, CredentialsProvider credentialsProvider) {
+        this.configuration = configuration;
+        this.credentialsProvider = credentialsProvider;
+        this.metrics = new Metrics(configuration.getApplication());
+    }
+
+    /**
+     * Clones the repository of the application and prepares it for deployments
+     */
+    void start() {
+        long beforeInit = System.currentTimeMillis();
+
+        log.info("Preparing Arquillian OpenShift container at " + configuration.getRootContextUrl());
+
+        this.repository = new OpenShiftRepository(configuration, credentialsProvider, metrics);
+
+        if (log.isLoggable(Level.FINE)) {
+            log.fine("Git repository initialization took " + (System.currentTimeMillis() - beforeInit) + "ms");
+        }
+
+        if (configuration.isDiscardHistory()) {
+            String state = repository.saveState();
+            log.info("State of the repository has been saved to the branch <" + state + ">.");
+        }
+        if (repository.hasSourceBuild()) {
+            repository.markArquillianLifeCycle();
+        }
+        started = true;
+    }
+
+    /**
+     * Releases the gear when the container failed to start. A started gear is stopped, the repository of a gear which
+     * failed to start is just closed.
+     */
+    void abort() {
+        if (started) {
+            stop(false);
+        } else if (repository != null) {
+            repository.close();
+            repository = null;
+        }
+    }
+
+    /**
+     * Restores the repository of the application and releases it
+     *
+     * @param pendingPush {@code true} if there are commits which were not pushed yet
+     */
+    void stop(boolean pendingPush) {
+        log.info("Shutting down Arquillian OpenShift container at " + configuration.getRootContextUrl());
+
+        // restored history does not contain the ping archive anyway
+        if (pingDeployed && !configuration.isDiscardHistory()) {
+            repository.remove(AS7PingArchive.ARCHIVE_NAME);
+            pendingPush = true;
+        }
+        pingDeployed = false;
+        verifiedHashes.clear();
+
+        // do not leave commits of an unfinished batch behind
+        if (pendingPush) {
+            repository.push();
+        }
+
+        if (repository.hasSourceBuild()) {
+            repository.unmarkArquillianLifeCycle();
+        }
+        if (configuration.isDiscardHistory()) {
+            String state = repository.getLastSavedState();
+            repository.loadState(state);
+            log.info("State of the repository has been loaded from the branch <" + state + ">.");
+        }
+
+        repository.close();
+        started = false;
+    }
+
+    /**
+     * Commits the archive, together with the ping archive on AS7 if it was not deployed yet, without pushing it.
+     * Archives removed by the same commit are undeployed, unless they are replaced by the archive. Nothing is committed
+     * if the very same archive was already pushed and the server confirmed its deployment.
+     *
+     * @param archive the archive
+     * @param removedNames names of archives to be removed by the same commit
+     * @return {@code true} if the archive was committed and has to be pushed
+     */
+    boolean commitDeployment(Archive<?> archive, Collection<String> removedNames) {
+        if (isDeployed(archive, removedNames)) {
+            if (log.isLoggable(Level.FINE)) {
+                log.fine("Archive " + archive.getName() + " is already deployed to " + configuration.getRootContextUrl()
+                        + ", skipping its deployment");
+            }
+            return false;
+        }
+
+        verifiedHashes.remove(archive.getName());
+        for (String removedName : removedNames) {
+            verifiedHashes.remove(removedName);
+        }
+
+        // ping archive and the deployment are committed together
+        repository.beginTransaction();
+        try {
+            // additions below win over removals of the same path
+            for (String removedName : removedNames) {
+                repository.remove(removedName);
+            }
+
+            // we need to add a special deployment we can ping to check if we're done deploying
+            boolean deployPing = CartridgeType.JBOSSAS7 == configuration.getCartridgeType() && !pingDeployed;
+            if (deployPing) {
+                repository.add(AS7PingArchive.ARCHIVE_NAME, new ByteArrayInputStream(AS7PingArchive.getContent()));
+            }
+
+            if (configuration.isExplodedDeployments()) {
+                repository.addExploded(archive.getName(), archive);
+            } else {
+                repository.add(archive.getName(), archive);
+            }
+            repository.commitTransaction();
+            pingDeployed = pingDeployed || deployPing;
+        } catch (RuntimeException e) {
+            repository.discardTransaction();
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * Commits removal of archives without pushing it. The ping archive is kept deployed.
+     *
+     * @param names names of the archives
+     */
+    void commitUndeployment(Collection<String> names) {
+        Metrics.Timer timer = metrics.start(Phase.UNDEPLOY, null);
+        repository.beginTransaction();
+        try {
+            for (String name : names) {
+                repository.remove(name);
+                verifiedHashes.remove(name);
+            }
+            repository.commitTransaction();
+            timer.stop(Measurement.UNKNOWN, names.size());
+        } catch (RuntimeException e) {
+            repository.discardTransaction();
+            throw e;
+        }
+    }
+
+    // only a single archive can be compared, removal of any other one needs a commit
+    private boolean isDeployed(Archive<?> archive, Collection<String> removedNames) {
+        if (configuration.isExplodedDeployments()) {
+            return false;
+        }
+        for (String removedName : removedNames) {
+            if (!removedName.equals(archive.getName())) {
+                return false;
+            }
+        }
+
+        // pushed content is not enough, the server might have marked the archive as failed
+        String verifiedHash = verifiedHashes.get(archive.getName());
+        return verifiedHash != null && repository.isDeployed(archive.getName(), archive)
+                && verifiedHash.equals(repository.getContentHash(archive.getName()));
+    }
+
+    /**
+     * Pushes commits without waiting for any archive
+     */
+    void push() {
+        repository.push();
+    }
+
+    /**
+     * Pushes commits and waits until archives are deployed
+     *
+     * @param deploymentNames names of archives deployed by pushed commits
+     * @throws DeploymentException if any of the archives was not deployed within the timeout
+     */
+    void push(Collection<String> deploymentNames) throws DeploymentException {
+        repository.push();
+
+        // without the ping archive, none of the archives was committed to this gear
+        if (CartridgeType.JBOSSAS7 == configuration.getCartridgeType() && pingDeployed && !deploymentNames.isEmpty()) {
+            waitUntilDeployed(AS7PingArchive.ARCHIVE_NAME, deploymentNames);
+        }
+
+        // other cartridges cannot tell more than that the push succeeded
+        for (String deploymentName : deploymentNames) {
+            String hash = repository.getContentHash(deploymentName);
+            if (hash != null) {
+                verifiedHashes.put(deploymentName, hash);
+            }
+        }
+    }
+
+    /**
+     * Extracts metadata of the archive deployed to this application
+     *
+     * @param archive the archive
+     * @return the metadata
+     */
+    ProtocolMetaData parse(Archive<?> archive) {
+        Metrics.Timer timer = metrics.start(Phase.METADATA_PARSE, archive.getName());
+        ProtocolMetaData metaData = new ProtocolMetaDataParser(configuration).parse(archive);
+        timer.stop();
+        return metaData;
+    }
+
+    /**
+     * @return the configuration
+     */
+    OpenShiftContainerConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * @return the metrics of this gear
+     */
+    Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return the repository, {@code null} if the gear was not started
+     */
+    OpenShiftRepository getRepository() {
+        return repository;
+    }
+
+    private void waitUntilDeployed(String pingArchiveName, Collection<String> deploymentNames) throws DeploymentException {
+        ReadinessProber prober = new ReadinessProber(configuration);
+        long timeout = System.currentTimeMillis() + configuration.getDeploymentTimeoutInSeconds() * 1000;
+
+        // all archives were pushed together, so they are checked by a single request
+        StringBuilder url = new StringBuilder().append("http://").append(configuration.getHostName()).append(":")
+                .append(configuration.getHttpPort()).append("/").append(createDeploymentName(pingArchiveName))
+                .append("/deploy");
+        char separator = '?';
+        for (String deploymentName : deploymentNames) {
+            url.append(separator).append("name=").append(encode(deploymentName));
+            separator = '&';
+
+            // a replaced deployment is not considered deployed until its content changes
+            String hash = repository.getContentHash(deploymentName);
+            if (hash != null) {
+                url.append("&hash.").append(encode(deploymentName)).append('=').append(hash);
+            }
+        }
+
+        log.fine("Checking if deployments are deployed: " + url);
+
+        Metrics.Timer timer = metrics.start(Phase.READINESS_WAIT, deploymentNames.toString());
+        boolean ready = prober.await(url.toString(), timeout);
+        timer.stop(Measurement.UNKNOWN, prober.getProbeCount());
+        if (ready) {
+            return;
+        }
+
+        // the last answer tells which archives were not deployed, all of them if there was no answer
+        Properties document = new Properties();
+        try {
+            document.load(new ByteArrayInputStream(prober.getLastResponse()));
+        } catch (IOException e) {
+            log.fine("Unable to read status of deployments: " + e.getMessage());
+        }
+
+        StringBuilder unreachable = new StringBuilder();
+        StringBuilder failed = new StringBuilder();
+        for (String deploymentName : deploymentNames) {
+            DeploymentStatus status = DeploymentStatus.of(document, deploymentName);
+            if (status == DeploymentStatus.FAILED) {
+                failed.append(deploymentName).append(": ").append(DeploymentStatus.getFailure(document, deploymentName))
+                        .append("\n");
+            } else if (status != DeploymentStatus.DEPLOYED) {
+                unreachable.append(deploymentName).append("\n");
+            }
+        }
+
+        // the server already knows the cause
+        if (failed.length() != 0) {
+            throw new DeploymentException("Following archives failed to deploy at " + configuration.getHostName()
+                    + " after " + prober.getWaitTime() + "ms:\n" + failed);
+        }
+
+        throw new DeploymentException("Following path were not reachable at " + configuration.getHostName()
+                + " within " + configuration.getDeploymentTimeoutInSeconds() + " seconds after git push. "
+                + "Check if following archives are constructed properly:\n" + unreachable);
+    }
+
+    private String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException("Unable to encode " + value, e);
+        }
+    }
+
+    private String createDeploymentName(String archiveName) {
+        String correctedName = archiveName;
+        if (correctedName.startsWith("/")) {
+            correctedName = correctedName.substring(1);
+        }
+        if (correctedName.indexOf(".") != -1) {
+            correctedName = correctedName.substring(0, correctedName.lastIndexOf("."));
+        }
+        return correctedName;
+    }
+}
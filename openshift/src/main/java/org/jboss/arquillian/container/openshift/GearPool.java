@@ -0,0 +1,147 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.openshift;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.jboss.arquillian.container.openshift.util.LockFile;
+
+/**
+ * A pool of OpenShift applications shared by all JVMs on the machine. Each application is leased exclusively by a lock
+ * file in the pool directory, so parallel test forks never push to the same application. Lock files are named after
+ * the host name of the application, so applications of the same name in different namespaces are leased separately.
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+class GearPool {
+    private static final Logger log = Logger.getLogger(GearPool.class.getName());
+
+    private static final String LEASE_SUFFIX = ".lease";
+
+    private static final long RETRY_INTERVAL = 500;
+
+    private final File directory;
+
+    private final String namespace;
+
+    private final String libraDomain;
+
+    /**
+     * Creates a pool
+     *
+     * @param directory the directory where leases are kept
+     * @param namespace the namespace of applications in the pool
+     * @param libraDomain the Libra Domain of applications in the pool
+     */
+    GearPool(File directory, String namespace, String libraDomain) {
+        this.directory = directory;
+        this.namespace = namespace;
+        this.libraDomain = libraDomain;
+    }
+
+    /**
+     * Leases the first free application. Waits until an application is released if all of them are leased.
+     *
+     * @param applications application name and SSH user name pairs
+     * @param timeout timeout in milliseconds
+     * @return the lease
+     * @throws IllegalStateException if no application was released within the timeout
+     */
+    Lease lease(List<String[]> applications, long timeout) {
+        long deadline = System.currentTimeMillis() + timeout;
+        while (true) {
+            for (String[] application : applications) {
+                LockFile lock;
+                try {
+                    lock = LockFile.tryAcquire(new File(directory, getLeaseName(application[0])));
+                } catch (IOException e) {
+                    throw new IllegalStateException("Unable to lease OpenShift application " + application[0], e);
+                }
+                if (lock != null) {
+                    log.info("Leased OpenShift application " + application[0] + " from the gear pool");
+                    return new Lease(application[0], application[1], lock);
+                }
+            }
+
+            if (System.currentTimeMillis() + RETRY_INTERVAL > deadline) {
+                throw new IllegalStateException("All " + applications.size()
+                        + " applications of the gear pool were leased for more than " + timeout + "ms");
+            }
+            try {
+                Thread.sleep(RETRY_INTERVAL);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for an application of the gear pool", e);
+            }
+        }
+    }
+
+    // the same as the default host name of the application
+    String getLeaseName(String application) {
+        return application + "-" + namespace + "." + libraDomain + LEASE_SUFFIX;
+    }
+
+    /**
+     * @return the directory
+     */
+    File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * An exclusive lease of an application
+     */
+    static class Lease {
+        private final String application;
+
+        private final String sshUserName;
+
+        private final LockFile lock;
+
+        Lease(String application, String sshUserName, LockFile lock) {
+            this.application = application;
+            this.sshUserName = sshUserName;
+            this.lock = lock;
+        }
+
+        /**
+         * @return the application
+         */
+        String getApplication() {
+            return application;
+        }
+
+        /**
+         * @return the sshUserName
+         */
+        String getSshUserName() {
+            return sshUserName;
+        }
+
+        /**
+         * Returns the application to the pool
+         */
+        void release() {
+            lock.release();
+            log.info("Returned OpenShift application " + application + " to the gear pool");
+        }
+    }
+}
@@ -17,29 +17,44 @@
 package org.jboss.arquillian.container.openshift;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.net.URLConnection;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.eclipse.jgit.transport.CredentialsProvider;
-import org.jboss.arquillian.container.openshift.ping.AS7PingArchive;
+import org.jboss.arquillian.container.openshift.archive.ArchiveUtil;
+import org.jboss.arquillian.container.openshift.auth.ArquillianSshSessionFactory;
+import org.jboss.arquillian.container.openshift.metrics.Measurement;
+import org.jboss.arquillian.container.openshift.metrics.MetricsReport;
 import org.jboss.arquillian.container.spi.client.container.DeployableContainer;
 import org.jboss.arquillian.container.spi.client.container.DeploymentException;
 import org.jboss.arquillian.container.spi.client.container.LifecycleException;
 import org.jboss.arquillian.container.spi.client.protocol.ProtocolDescription;
 import org.jboss.arquillian.container.spi.client.protocol.metadata.ProtocolMetaData;
 import org.jboss.arquillian.container.spi.context.annotation.ContainerScoped;
+import org.jboss.arquillian.core.api.Event;
 import org.jboss.arquillian.core.api.Instance;
 import org.jboss.arquillian.core.api.InstanceProducer;
 import org.jboss.arquillian.core.api.annotation.Inject;
 import org.jboss.arquillian.core.spi.ServiceLoader;
 import org.jboss.shrinkwrap.api.Archive;
-import org.jboss.shrinkwrap.api.exporter.ZipExporter;
 import org.jboss.shrinkwrap.descriptor.api.Descriptor;
 
 /**
@@ -47,6 +62,16 @@ import org.jboss.shrinkwrap.descriptor.api.Descriptor;
  * created before the test itself.
  *
  * <p>
+ * If additional applications are configured, every deployment is pushed to all of them in parallel and metadata contain
+ * a context for each of them.
+ * </p>
+ *
+ * <p>
+ * Each phase of the work with an application is measured and fired as a {@link Measurement} event. If
+ * {@code metricsReportFile} is configured, all measurements are written there when the container is stopped.
+ * </p>
+ *
+ * <p>
  * See {@link OpenShiftContainerConfiguration} for required configuration
  * </p>
  *
@@ -68,8 +93,37 @@ public class OpenShiftContainer implements DeployableContainer<OpenShiftContaine
    @Inject
    private Instance<ServiceLoader> serviceLoader;
 
+   @Inject
+   private Event<Measurement> measured;
+
    private CredentialsProvider credentialsProvider;
 
+   // the first gear is the one from the configuration, others are additional applications
+   private final List<Gear> gears = new ArrayList<Gear>();
+
+   private ExecutorService gearExecutor;
+
+   private GearPool.Lease gearLease;
+
+   // batch of deployments committed but not yet pushed
+   private boolean batching;
+
+   // archives of the batch which were not deployed or undeployed yet, the last of them pushes the batch
+   private final Set<String> batchedNames = new LinkedHashSet<String>();
+
+   private boolean pendingPush;
+
+   private final Set<String> pendingDeployments = new LinkedHashSet<String>();
+
+   // archives undeployed but not yet removed from the repository
+   private final Set<String> deferredUndeployments = new LinkedHashSet<String>();
+
+   // content digests of deployed archives, so an unchanged redeployment is recognized
+   private final Map<String, String> deployedDigests = new HashMap<String, String>();
+
+   // all phases measured since the container was started
+   private final List<Measurement> measurements = new ArrayList<Measurement>();
+
    @Override
    public ProtocolDescription getDefaultProtocol()
    {
@@ -92,57 +146,144 @@ public class OpenShiftContainer implements DeployableContainer<OpenShiftContaine
    @Override
    public void start() throws LifecycleException
    {
-
-      // initialize repository
-      long beforeInit = System.currentTimeMillis();
       OpenShiftContainerConfiguration conf = configuration.get();
 
-      log.info("Preparing Arquillian OpenShift container at " + conf.getRootContextUrl());
+      // application is leased for the lifetime of the container
+      List<String[]> pool = conf.getGearPoolApplications();
+      if (!pool.isEmpty())
+      {
+         GearPool gearPool = new GearPool(new File(conf.getGearPoolDirectory()), conf.getNamespace(),
+               conf.getLibraDomain());
+         try
+         {
+            gearLease = gearPool.lease(pool, conf.getGearPoolLeaseTimeoutInSeconds() * 1000);
+         }
+         catch (IllegalStateException e)
+         {
+            throw new LifecycleException("Unable to lease an application from the gear pool", e);
+         }
 
-      this.repository.set(new OpenShiftRepository(conf, credentialsProvider));
+         conf = conf.forApplication(gearLease.getApplication(), gearLease.getSshUserName());
+         // repository of the application is kept for the next lease
+         if (conf.getCloneCacheDirectory() == null)
+         {
+            conf.setCloneCacheDirectory(gearPool.getDirectory().getAbsolutePath());
+         }
+         configuration.set(conf);
+      }
 
-      if (log.isLoggable(Level.FINE))
+      gears.clear();
+      for (OpenShiftContainerConfiguration target : conf.getTargets())
+      {
+         gears.add(new Gear(target, credentialsProvider));
+      }
+
+      if (gears.size() > 1)
       {
-         log.fine("Git repository initialization took " + (System.currentTimeMillis() - beforeInit) + "ms");
+         gearExecutor = Executors.newFixedThreadPool(gears.size(), new GearThreadFactory());
       }
 
-      OpenShiftRepository repo = repository.get();
-      if (conf.isDiscardHistory()) {
-         String state = repo.saveState();
-         log.info("State of the repository has been saved to the branch <" + state + ">.");
+      ArquillianSshSessionFactory.acquireSessions();
+      boolean started = false;
+      try
+      {
+         forEachGear(new GearOperation()
+         {
+            @Override
+            public void execute(Gear gear)
+            {
+               gear.start();
+            }
+         });
+         started = true;
       }
-      if(repo.hasSourceBuild()) {
-         repo.markArquillianLifeCycle();
+      catch (DeploymentException e)
+      {
+         throw new LifecycleException("Unable to start OpenShift container", e);
       }
+      finally
+      {
+         // Arquillian does not stop a container which failed to start
+         if (!started)
+         {
+            abortGears();
+         }
+      }
+
+      this.repository.set(gears.get(0).getRepository());
    }
 
    @Override
    public void stop() throws LifecycleException
    {
-      OpenShiftContainerConfiguration conf = configuration.get();
-      OpenShiftRepository repo = repository.get();
+      // removals postponed until the next deployment are pushed now
+      boolean undeployed;
+      try
+      {
+         undeployed = commitDeferredUndeployments();
+      }
+      catch (DeploymentException e)
+      {
+         throw new LifecycleException("Unable to stop OpenShift container", e);
+      }
 
-      log.info("Shutting down Arquillian OpenShift container at " + conf.getRootContextUrl());
+      final boolean push = pendingPush || undeployed;
+      pendingPush = false;
+      pendingDeployments.clear();
+      deployedDigests.clear();
+      batching = false;
+      batchedNames.clear();
 
-      if(repo.hasSourceBuild()) {
-         repo.unmarkArquillianLifeCycle();
+      try
+      {
+         forEachGear(new GearOperation()
+         {
+            @Override
+            public void execute(Gear gear)
+            {
+               gear.stop(push);
+            }
+         });
       }
-      if (conf.isDiscardHistory()) {
-         String state = repo.getLastSavedState();
-         repo.loadState(state);
-         log.info("State of the repository has been loaded from the branch <" + state + ">.");
+      catch (DeploymentException e)
+      {
+         throw new LifecycleException("Unable to stop OpenShift container", e);
+      }
+      finally
+      {
+         if (gearExecutor != null)
+         {
+            gearExecutor.shutdown();
+            gearExecutor = null;
+         }
+         if (gearLease != null)
+         {
+            gearLease.release();
+            gearLease = null;
+         }
+         // sessions might still be used by another container in the JVM
+         ArquillianSshSessionFactory.releaseSessions();
+         writeMetricsReport();
+         measurements.clear();
       }
    }
 
    @Override
-   public void deploy(Descriptor descriptor) throws DeploymentException
+   public void deploy(final Descriptor descriptor) throws DeploymentException
    {
 
       long beforeDeploy = System.currentTimeMillis();
 
-      OpenShiftRepository repo = repository.get();
-      InputStream is = new ByteArrayInputStream(descriptor.getDescriptorName().getBytes(Charset.defaultCharset()));
-      repo.addAndPush(descriptor.getDescriptorName(), is);
+      commitDeferredUndeployments();
+      forEachGear(new GearOperation()
+      {
+         @Override
+         public void execute(Gear gear)
+         {
+            InputStream is = new ByteArrayInputStream(descriptor.getDescriptorName().getBytes(Charset.defaultCharset()));
+            gear.getRepository().addAndPush(descriptor.getDescriptorName(), is);
+         }
+      });
 
       if (log.isLoggable(Level.FINE))
       {
@@ -152,13 +293,20 @@ public class OpenShiftContainer implements DeployableContainer<OpenShiftContaine
    }
 
    @Override
-   public void undeploy(Descriptor descriptor) throws DeploymentException
+   public void undeploy(final Descriptor descriptor) throws DeploymentException
    {
 
       long beforeUnDeploy = System.currentTimeMillis();
 
-      OpenShiftRepository repo = repository.get();
-      repo.removeAndPush(descriptor.getDescriptorName());
+      commitDeferredUndeployments();
+      forEachGear(new GearOperation()
+      {
+         @Override
+         public void execute(Gear gear)
+         {
+            gear.getRepository().removeAndPush(descriptor.getDescriptorName());
+         }
+      });
 
       if (log.isLoggable(Level.FINE))
       {
@@ -168,185 +316,435 @@ public class OpenShiftContainer implements DeployableContainer<OpenShiftContaine
    }
 
    @Override
-   public ProtocolMetaData deploy(Archive<?> archive) throws DeploymentException
+   public ProtocolMetaData deploy(final Archive<?> archive) throws DeploymentException
    {
+      long beforeDeploy = System.currentTimeMillis();
+
       OpenShiftContainerConfiguration conf = configuration.get();
 
-      long beforeDeploy = System.currentTimeMillis();
+      // push is postponed until the whole batch is committed
+      final boolean push = !(batching && batchedNames.remove(archive.getName()));
 
-      OpenShiftRepository repo = repository.get();
+      // archive replaces the one with the same name whose removal was postponed
+      String digest = conf.isDeferUndeployments() ? ArchiveUtil.getContentDigest(archive) : null;
+      boolean replacing = deferredUndeployments.remove(archive.getName());
+      if (replacing && deferredUndeployments.isEmpty() && digest.equals(deployedDigests.get(archive.getName())))
+      {
+         if (log.isLoggable(Level.FINE))
+         {
+            log.fine("Deployment of " + archive.getName() + " did not change since its undeployment, kept it deployed");
+         }
+         if (!push && batchedNames.isEmpty())
+         {
+            finishBatch();
+         }
+         return getProtocolMetaData(archive);
+      }
 
-      // we need to add a special deployment we can ping to check if we're done deploying
-      if (CartridgeType.JBOSSAS7 == conf.getCartridgeType())
+      final List<String> removedNames = new ArrayList<String>(deferredUndeployments);
+      if (replacing)
+      {
+         removedNames.add(archive.getName());
+      }
+      deferredUndeployments.clear();
+      for (String removedName : removedNames)
       {
-         repo.add(AS7PingArchive.ARCHIVE_NAME, AS7PingArchive.create().as(ZipExporter.class).exportAsInputStream());
+         deployedDigests.remove(removedName);
       }
 
-      InputStream is = archive.as(ZipExporter.class).exportAsInputStream();
-      repo.addAndPush(archive.getName(), is);
+      forEachGear(new GearOperation()
+      {
+         @Override
+         public void execute(Gear gear) throws DeploymentException
+         {
+            // gear which already has the archive is not pushed to at all
+            if (gear.commitDeployment(archive, removedNames) && push)
+            {
+               gear.push(Collections.singletonList(archive.getName()));
+            }
+         }
+      });
 
-      if (log.isLoggable(Level.FINE))
+      if (push)
       {
-         log.fine("Deployment of " + archive.getName() + " took " + (System.currentTimeMillis() - beforeDeploy) + "ms");
+         if (log.isLoggable(Level.FINE))
+         {
+            log.fine("Deployment of " + archive.getName() + " took " + (System.currentTimeMillis() - beforeDeploy) + "ms");
+         }
+      }
+      else
+      {
+         pendingPush = true;
+         pendingDeployments.add(archive.getName());
+
+         if (log.isLoggable(Level.FINE))
+         {
+            log.fine("Deployment of " + archive.getName() + " was added to the batch in "
+                  + (System.currentTimeMillis() - beforeDeploy) + "ms");
+         }
+
+         // failure of any archive of the batch is reported by its last deployment
+         if (batchedNames.isEmpty())
+         {
+            finishBatch();
+         }
       }
 
-      if (CartridgeType.JBOSSAS7 == conf.getCartridgeType())
+      if (digest != null)
       {
-         waitUntilDeployed(AS7PingArchive.ARCHIVE_NAME, archive.getName());
+         deployedDigests.put(archive.getName(), digest);
       }
 
-      ProtocolMetaDataParser parser = new ProtocolMetaDataParser(conf);
-      return parser.parse(archive);
+      return getProtocolMetaData(archive);
    }
 
    @Override
-   public void undeploy(Archive<?> archive) throws DeploymentException
+   public void undeploy(final Archive<?> archive) throws DeploymentException
    {
-      OpenShiftContainerConfiguration conf = configuration.get();
-
       long beforeUnDeploy = System.currentTimeMillis();
 
-      OpenShiftRepository repo = repository.get();
-      if (CartridgeType.JBOSSAS7 == conf.getCartridgeType())
+      pendingDeployments.remove(archive.getName());
+      final boolean push = !(batching && batchedNames.remove(archive.getName()));
+
+      // removal is pushed together with the next deployment, which often replaces the very same archive
+      if (configuration.get().isDeferUndeployments())
       {
-         repo.remove(AS7PingArchive.ARCHIVE_NAME);
+         deferredUndeployments.add(archive.getName());
+
+         if (log.isLoggable(Level.FINE))
+         {
+            log.fine("Undeployment of " + archive.getName() + " was postponed until the next deployment");
+         }
+         if (!push && batchedNames.isEmpty())
+         {
+            finishBatch();
+         }
+         return;
       }
 
-      repo.removeAndPush(archive.getName());
+      forEachGear(new GearOperation()
+      {
+         @Override
+         public void execute(Gear gear)
+         {
+            gear.commitUndeployment(Collections.singletonList(archive.getName()));
+            if (push)
+            {
+               gear.push();
+            }
+         }
+      });
 
       if (log.isLoggable(Level.FINE))
       {
          log.fine("Undeployment of " + archive.getName() + " took " + (System.currentTimeMillis() - beforeUnDeploy)
                + "ms");
       }
+
+      if (!push)
+      {
+         pendingPush = true;
+         if (batchedNames.isEmpty())
+         {
+            finishBatch();
+         }
+      }
    }
 
    /**
-    * Returns a credentials provider for OpenShift. If no implementation is found, it returns a configuration based
-    * one.
+    * Starts collecting deployment or undeployment commits of given archives without pushing them. The batch is pushed
+    * when the last of them is deployed or undeployed. Does nothing unless batching is enabled in the configuration.
     *
-    * @return the credentials provider
+    * @param names names of archives in the batch
     */
-   private CredentialsProvider getCredentialsProvider()
+   void startBatch(Collection<String> names)
    {
-      // get the credentials provider
-      ServiceLoader service = serviceLoader.get();
-      return service.onlyOne(CredentialsProvider.class);
+      batchedNames.clear();
+      if (configuration.get().isBatchDeployments() && !names.isEmpty())
+      {
+         batching = true;
+         batchedNames.addAll(names);
+      }
    }
 
-   private void waitUntilDeployed(String pingArchiveName, String deploymentName) throws DeploymentException
+   /**
+    * Pushes all commits collected since {@link #startBatch(Collection)} at once and waits until every archive deployed
+    * in the batch is available.
+    *
+    * @throws DeploymentException if any of the archives was not deployed within the timeout
+    */
+   void finishBatch() throws DeploymentException
    {
-      StringBuilder url = new StringBuilder().append("http://").append(configuration.get().getHostName())
-            .append(":80/").append(createDeploymentName(pingArchiveName)).append("/deploy?name=")
-            .append(deploymentName);
+      if (!batching)
+      {
+         return;
+      }
+      batching = false;
+      batchedNames.clear();
+
+      if (!pendingPush)
+      {
+         return;
+      }
 
-      log.fine("Checking if deployment is deployed: " + url);
+      long beforePush = System.currentTimeMillis();
 
-      long timeout = System.currentTimeMillis() + configuration.get().getDeploymentTimeoutInSeconds() * 1000;
+      final List<String> deploymentNames = new ArrayList<String>(pendingDeployments);
 
-      UrlChecker checker = new UrlChecker(timeout, url.toString());
-      if (!checker.checkUrlWithRetry())
+      pendingPush = false;
+      pendingDeployments.clear();
+
+      boolean pushed = false;
+      try
       {
-         throw new DeploymentException("Following path were not reachable within " + configuration.get().getDeploymentTimeoutInSeconds() + " seconds after git push. "
-               + "Check if following archives are constructed properly:\n" + deploymentName);
+         forEachGear(new GearOperation()
+         {
+            @Override
+            public void execute(Gear gear) throws DeploymentException
+            {
+               gear.push(deploymentNames);
+            }
+         });
+         pushed = true;
       }
-   }
-
-   private String createDeploymentName(String archiveName)
-   {
-      String correctedName = archiveName;
-      if (correctedName.startsWith("/"))
+      finally
       {
-         correctedName = correctedName.substring(1);
+         // archives of a failed batch are not known to be deployed, their next deployment is pushed again
+         if (!pushed)
+         {
+            for (String name : deploymentNames)
+            {
+               deployedDigests.remove(name);
+            }
+         }
       }
-      if (correctedName.indexOf(".") != -1)
+
+      if (log.isLoggable(Level.FINE))
       {
-         correctedName = correctedName.substring(0, correctedName.lastIndexOf("."));
+         log.fine("Batch of " + deploymentNames + " took " + (System.currentTimeMillis() - beforePush) + "ms");
       }
-      return correctedName;
    }
 
-   //in an interval, it checks whether an url returns HTTP 20x response
-   class UrlChecker
+   /**
+    * Commits removal of archives whose undeployment was postponed. Commits are pushed later.
+    *
+    * @return {@code true} if there was anything to commit
+    */
+   private boolean commitDeferredUndeployments() throws DeploymentException
    {
-      final long timeout;
-
-      final String url;
+      if (deferredUndeployments.isEmpty())
+      {
+         return false;
+      }
 
-      UrlChecker(long timeout, String url)
+      final List<String> names = new ArrayList<String>(deferredUndeployments);
+      deferredUndeployments.clear();
+      for (String name : names)
       {
-         this.timeout = timeout;
-         this.url = url;
+         deployedDigests.remove(name);
       }
 
-      public boolean checkUrlWithRetry()
+      forEachGear(new GearOperation()
       {
-         boolean interrupted = false;
-         while (timeout > System.currentTimeMillis())
+         @Override
+         public void execute(Gear gear)
          {
-            if (isUrlPresent(url) == true)
-            {
-               return true;
-            }
-            try
-            {
-               Thread.sleep(500);
-            }
-            catch (InterruptedException e)
-            {
-               interrupted = true;
-            }
+            gear.commitUndeployment(names);
          }
-         if (interrupted)
+      });
+      return true;
+   }
+
+   // each application provides its own context
+   private ProtocolMetaData getProtocolMetaData(Archive<?> archive)
+   {
+      ProtocolMetaData metaData = new ProtocolMetaData();
+      for (Gear gear : gears)
+      {
+         for (Object context : gear.parse(archive).getContexts())
          {
-            Thread.currentThread().interrupt();
+            metaData.addContext(context);
          }
+      }
+      fireMeasurements();
+      return metaData;
+   }
 
-         return false;
+   private void fireMeasurements()
+   {
+      for (Gear gear : gears)
+      {
+         for (Measurement measurement : gear.getMetrics().drain())
+         {
+            measurements.add(measurement);
+            measured.fire(measurement);
+         }
       }
+   }
 
-      private boolean isUrlPresent(String url)
+   // report covers the whole lifecycle of the container, which is a test suite
+   private void writeMetricsReport()
+   {
+      String reportFile = configuration.get().getMetricsReportFile();
+      if (reportFile == null || reportFile.length() == 0)
+      {
+         return;
+      }
+      try
+      {
+         new MetricsReport(new File(reportFile)).write(measurements);
+         log.info("Metrics of OpenShift container were written to " + reportFile);
+      }
+      catch (IOException e)
       {
+         log.warning("Unable to write metrics of OpenShift container to " + reportFile + ": " + e.getMessage());
+      }
+   }
 
-         HttpURLConnection httpConnection = null;
+   /**
+    * Returns a credentials provider for OpenShift. If no implementation is found, it returns a configuration based
+    * one.
+    *
+    * @return the credentials provider
+    */
+   private CredentialsProvider getCredentialsProvider()
+   {
+      // get the credentials provider
+      ServiceLoader service = serviceLoader.get();
+      return service.onlyOne(CredentialsProvider.class);
+   }
 
+   /**
+    * Releases gears which were started before the container failed to start, together with the leased application and
+    * SSH sessions.
+    * Failures are only logged so they do not hide the original one.
+    */
+   private void abortGears()
+   {
+      for (Gear gear : gears)
+      {
          try
          {
-            URLConnection connection = new URL(url).openConnection();
-            if (!(connection instanceof HttpURLConnection))
-            {
-               throw new IllegalStateException("Not an http connection! " + connection);
-            }
+            gear.abort();
+         }
+         catch (RuntimeException e)
+         {
+            log.log(Level.WARNING, "Unable to release OpenShift application after failed start", e);
+         }
+      }
+      gears.clear();
+
+      if (gearExecutor != null)
+      {
+         gearExecutor.shutdown();
+         gearExecutor = null;
+      }
+      if (gearLease != null)
+      {
+         gearLease.release();
+         gearLease = null;
+      }
+      ArquillianSshSessionFactory.releaseSessions();
+   }
 
-            httpConnection = (HttpURLConnection) connection;
-            httpConnection.setUseCaches(false);
-            httpConnection.setDefaultUseCaches(false);
-            httpConnection.setDoInput(true);
-            httpConnection.setRequestMethod("GET");
-            httpConnection.setDoOutput(false);
+   /**
+    * Executes the operation on all gears, in parallel if there are more of them. All operations are finished before
+    * the first failure is rethrown. Phases measured by the operation are fired afterwards.
+    */
+   private void forEachGear(final GearOperation operation) throws DeploymentException
+   {
+      try
+      {
+         executeOnGears(operation);
+      }
+      finally
+      {
+         // events are fired from the calling thread, gear operations might run in parallel
+         fireMeasurements();
+      }
+   }
 
-            httpConnection.connect();
-            httpConnection.getResponseCode();
+   private void executeOnGears(final GearOperation operation) throws DeploymentException
+   {
+      if (gearExecutor == null)
+      {
+         for (Gear gear : gears)
+         {
+            operation.execute(gear);
+         }
+         return;
+      }
 
-            if (httpConnection.getResponseCode() == HttpURLConnection.HTTP_OK)
+      List<Future<Void>> results = new ArrayList<Future<Void>>(gears.size());
+      for (final Gear gear : gears)
+      {
+         results.add(gearExecutor.submit(new Callable<Void>()
+         {
+            @Override
+            public Void call() throws Exception
             {
-               return true;
+               operation.execute(gear);
+               return null;
             }
+         }));
+      }
 
-            return false;
-         }
-         catch (IOException e)
+      Throwable failure = null;
+      for (Future<Void> result : results)
+      {
+         try
          {
-            e.printStackTrace();
-            return false;
+            result.get();
          }
-         finally
+         catch (ExecutionException e)
          {
-            if (httpConnection != null)
+            if (failure == null)
             {
-               httpConnection.disconnect();
+               failure = e.getCause();
             }
          }
+         catch (InterruptedException e)
+         {
+            Thread.currentThread().interrupt();
+            throw new DeploymentException("Interrupted while waiting for OpenShift applications", e);
+         }
+      }
+
+      if (failure instanceof DeploymentException)
+      {
+         throw (DeploymentException) failure;
+      }
+      else if (failure instanceof RuntimeException)
+      {
+         throw (RuntimeException) failure;
+      }
+      else if (failure instanceof Error)
+      {
+         throw (Error) failure;
+      }
+      else if (failure != null)
+      {
+         throw new DeploymentException("Unable to process OpenShift application", failure);
+      }
+   }
+
+   private interface GearOperation
+   {
+      void execute(Gear gear) throws DeploymentException;
+   }
+
+   // gear threads do not prevent JVM from exiting
+   private static class GearThreadFactory implements ThreadFactory
+   {
+      private final ThreadFactory delegate = Executors.defaultThreadFactory();
+
+      @Override
+      public Thread newThread(Runnable r)
+      {
+         Thread thread = delegate.newThread(r);
+         thread.setName("arquillian-openshift-" + thread.getName());
+         thread.setDaemon(true);
+         return thread;
       }
    }
-}
\ No newline at end of file
+}
@@ -16,10 +16,13 @@
  */
 package org.jboss.arquillian.container.openshift;
 
+import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.jboss.arquillian.container.spi.ConfigurationException;
 import org.jboss.arquillian.container.spi.client.container.ContainerConfiguration;
@@ -47,6 +50,10 @@ import org.jboss.arquillian.container.spi.client.deployment.Validate;
  * <li>libraDomain - domain where OpenShift server instance is running, e.g. rhcloud.com</li>
  * <li>deploymentTimeoutInSeconds - timeout in seconds to wait for a deployment to be finished</li>
  * <li>discardHistory - activates discarding deploying/undeploying commits from Arquillian</li>
+ * <li>readinessPollIntervalInMillis - interval between deployment readiness probes during the fast-poll phase</li>
+ * <li>readinessFastPollCount - number of readiness probes sent before the interval starts to grow</li>
+ * <li>readinessBackoffMultiplier - factor the interval between readiness probes grows by after the fast-poll phase</li>
+ * <li>readinessMaxPollIntervalInMillis - upper bound of the interval between readiness probes</li>
  * </ul>
  *
  * <p>
@@ -56,12 +63,35 @@ import org.jboss.arquillian.container.spi.client.deployment.Validate;
  * <li>passphrase - the passphrase to SSH identity key, can be set via SSH_PASSPHRASE environment variable</li>
  * <li>identityFile - the path to a private SSH identity key, can be set via SSH_IDENTITYFILE environment variable</li>
  * <li>disableStrictHostChecking - can disable StrictHostChecking. By default this this policy is set to {@code ask}</li>
+ * <li>deferUndeployments - postpones removal of an undeployed archive until the next deployment, so a redeployment of the
+ * same archive is pushed only once or not at all if it did not change. An undeployed archive stays available until then,
+ * so it is {@code false} by default</li>
+ * <li>batchDeployments - deploys all archives of a test class with a single push and waits for them at once</li>
+ * <li>explodedDeployments - stores archives exploded in the repository, so only changed entries are pushed on redeploy</li>
+ * <li>cloneCacheDirectory - a directory where cloned repositories are kept between runs, only fetched and reset on start</li>
+ * <li>cloneBranch - the branch deployments are committed to, {@code master} by default</li>
+ * <li>cloneSingleBranch - clones and fetches only the branch deployments are committed to</li>
+ * <li>additionalApplications - comma separated list of {@code application:sshUserName} pairs in the same namespace,
+ * deployments are pushed to all of them in parallel</li>
+ * <li>gearPool - comma separated list of {@code application:sshUserName} pairs in the same namespace, each container
+ * leases one of them exclusively instead of using {@code application} and {@code sshUserName}</li>
+ * <li>gearPoolDirectory - a directory where gear pool leases and clones of leased applications are kept</li>
+ * <li>gearPoolLeaseTimeoutInSeconds - timeout in seconds to wait for a free application in the gear pool</li>
+ * <li>bareRepository - clones a bare repository and commits deployments without writing them to a working tree</li>
+ * <li>metadataCacheDirectory - a directory where servlets found in deployments are kept between runs</li>
+ * <li>metricsReportFile - a CSV file where durations, bytes and object counts of all phases are written when the
+ * container is stopped</li>
+ * <li>remoteRepositoryUri - overrides the Git URI of the application, {@code {application}} is replaced by the
+ * application name, e.g. file:///tmp/gears/{application}.git for a local gear</li>
+ * <li>hostName - overrides the host name the application is available at, {@code {application}} is replaced by the
+ * application name. Additional and pooled applications keep the override only if it contains {@code {application}}</li>
+ * <li>httpPort - the HTTP port the application is available at, {@code 80} by default</li>
  * </ul>
  *
  * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
  * @version $Revision: $
  */
-public class OpenShiftContainerConfiguration implements ContainerConfiguration {
+public class OpenShiftContainerConfiguration implements ContainerConfiguration, Cloneable {
 
     private String type = "jbossas-7.0";
 
@@ -87,6 +117,47 @@ public class OpenShiftContainerConfiguration implements ContainerConfiguration {
 
     private boolean discardHistory = false;
 
+    private long readinessPollIntervalInMillis = 100;
+
+    private int readinessFastPollCount = 10;
+
+    private double readinessBackoffMultiplier = 1.5;
+
+    private long readinessMaxPollIntervalInMillis = 2000;
+
+    private boolean batchDeployments = false;
+
+    private boolean deferUndeployments = false;
+
+    private boolean explodedDeployments = false;
+
+    private String cloneCacheDirectory;
+
+    private String cloneBranch = "master";
+
+    private boolean cloneSingleBranch = false;
+
+    private String metadataCacheDirectory;
+
+    private String metricsReportFile;
+
+    private String remoteRepositoryUri;
+
+    private String hostName;
+
+    private int httpPort = 80;
+
+    private boolean bareRepository = false;
+
+    private String additionalApplications;
+
+    private String gearPool;
+
+    private String gearPoolDirectory = new File(System.getProperty("java.io.tmpdir"), "arquillian-openshift-gears")
+            .getAbsolutePath();
+
+    private long gearPoolLeaseTimeoutInSeconds = 600;
+
     /*
      * (non-Javadoc)
      *
@@ -95,19 +166,27 @@ public class OpenShiftContainerConfiguration implements ContainerConfiguration {
     public void validate() throws ConfigurationException {
         Validate.notNullOrEmpty(namespace,
                 "OpenShift namespace must be specified, please fill in \"namespace\" property in Arquillian configuration");
-        Validate.notNullOrEmpty(application,
-                "Application name must be specified, please fill in \"application\" property in Arquillian configuration");
         Validate.notNullOrEmpty(login,
                 "OpenShift login must be specified, please fill in \"login\" property in Arquillian configuration");
-        Validate.notNullOrEmpty(sshUserName,
-                "OpenShift SSH username must not be empty, please fill in \"sshUserName\" property in Arquillian configuration");
+        // application is leased from the gear pool
+        if (getGearPoolApplications().isEmpty()) {
+            Validate.notNullOrEmpty(application,
+                    "Application name must be specified, please fill in \"application\" property in Arquillian configuration");
+            Validate.notNullOrEmpty(sshUserName,
+                    "OpenShift SSH username must not be empty, please fill in \"sshUserName\" property in Arquillian configuration");
+        }
         Validate.notNullOrEmpty(libraDomain,
                 "OpenShift Libra Domain must not be empty, please fill in \"libraDomain\" property in Arquillian configuration");
         Validate.notNullOrEmpty(type,
                 "OpenShift Cartridge Type must be specified, please fill in \"libraDomain\" property in Arquillian configuration");
+        Validate.notNullOrEmpty(cloneBranch,
+                "Git branch must not be empty, please fill in \"cloneBranch\" property in Arquillian configuration");
 
         this.cartridgeType = CartridgeType.typeOf(type);
 
+        // each additional application must be a valid target as well
+        getTargets();
+
         // construct compound values and validate them
         getRemoteRepositoryUri();
         getRootContextUrl();
@@ -258,6 +337,12 @@ public class OpenShiftContainerConfiguration implements ContainerConfiguration {
      */
     public String getRemoteRepositoryUri() {
         try {
+            // gear pool leases the application later, the template is kept until then
+            if (remoteRepositoryUri != null && application == null) {
+                return remoteRepositoryUri;
+            } else if (remoteRepositoryUri != null) {
+                return new URI(remoteRepositoryUri.replace("{application}", application)).toString();
+            }
             return constructRemoteRepositoryURI().toString();
         } catch (URISyntaxException e) {
             throw new IllegalArgumentException(
@@ -266,6 +351,10 @@ public class OpenShiftContainerConfiguration implements ContainerConfiguration {
     }
 
     public String getHostName() {
+        if (hostName != null) {
+            return application != null ? hostName.replace("{application}", application) : hostName;
+        }
+
         StringBuilder sb = new StringBuilder();
         sb.append(application).append("-").append(namespace).append(".").append(libraDomain);
         return sb.toString();
@@ -289,6 +378,9 @@ public class OpenShiftContainerConfiguration implements ContainerConfiguration {
 
         StringBuilder sb = new StringBuilder("http://");
         sb.append(getHostName());
+        if (httpPort != 80) {
+            sb.append(":").append(httpPort);
+        }
 
         return new URL(sb.toString());
     }
@@ -309,6 +401,304 @@ public class OpenShiftContainerConfiguration implements ContainerConfiguration {
         this.discardHistory = discardHistory;
     }
 
+    public long getReadinessPollIntervalInMillis() {
+        return readinessPollIntervalInMillis;
+    }
+
+    public void setReadinessPollIntervalInMillis(long readinessPollIntervalInMillis) {
+        this.readinessPollIntervalInMillis = readinessPollIntervalInMillis;
+    }
+
+    public int getReadinessFastPollCount() {
+        return readinessFastPollCount;
+    }
+
+    public void setReadinessFastPollCount(int readinessFastPollCount) {
+        this.readinessFastPollCount = readinessFastPollCount;
+    }
+
+    public double getReadinessBackoffMultiplier() {
+        return readinessBackoffMultiplier;
+    }
+
+    public void setReadinessBackoffMultiplier(double readinessBackoffMultiplier) {
+        this.readinessBackoffMultiplier = readinessBackoffMultiplier;
+    }
+
+    public long getReadinessMaxPollIntervalInMillis() {
+        return readinessMaxPollIntervalInMillis;
+    }
+
+    public void setReadinessMaxPollIntervalInMillis(long readinessMaxPollIntervalInMillis) {
+        this.readinessMaxPollIntervalInMillis = readinessMaxPollIntervalInMillis;
+    }
+
+    public boolean isBatchDeployments() {
+        return batchDeployments;
+    }
+
+    public void setBatchDeployments(boolean batchDeployments) {
+        this.batchDeployments = batchDeployments;
+    }
+
+    public boolean isDeferUndeployments() {
+        return deferUndeployments;
+    }
+
+    public void setDeferUndeployments(boolean deferUndeployments) {
+        this.deferUndeployments = deferUndeployments;
+    }
+
+    public boolean isExplodedDeployments() {
+        return explodedDeployments;
+    }
+
+    public void setExplodedDeployments(boolean explodedDeployments) {
+        this.explodedDeployments = explodedDeployments;
+    }
+
+    /**
+     * @return the cloneCacheDirectory
+     */
+    public String getCloneCacheDirectory() {
+        return cloneCacheDirectory;
+    }
+
+    /**
+     * @param cloneCacheDirectory the cloneCacheDirectory to set
+     */
+    public void setCloneCacheDirectory(String cloneCacheDirectory) {
+        this.cloneCacheDirectory = cloneCacheDirectory;
+    }
+
+    /**
+     * @return the cloneBranch
+     */
+    public String getCloneBranch() {
+        return cloneBranch;
+    }
+
+    /**
+     * @param cloneBranch the cloneBranch to set
+     */
+    public void setCloneBranch(String cloneBranch) {
+        this.cloneBranch = cloneBranch;
+    }
+
+    /**
+     * @return the cloneSingleBranch
+     */
+    public boolean isCloneSingleBranch() {
+        return cloneSingleBranch;
+    }
+
+    /**
+     * @param cloneSingleBranch the cloneSingleBranch to set
+     */
+    public void setCloneSingleBranch(boolean cloneSingleBranch) {
+        this.cloneSingleBranch = cloneSingleBranch;
+    }
+
+    /**
+     * @return the metadataCacheDirectory
+     */
+    public String getMetadataCacheDirectory() {
+        return metadataCacheDirectory;
+    }
+
+    /**
+     * @param metadataCacheDirectory the metadataCacheDirectory to set
+     */
+    public void setMetadataCacheDirectory(String metadataCacheDirectory) {
+        this.metadataCacheDirectory = metadataCacheDirectory;
+    }
+
+    /**
+     * @return the metricsReportFile
+     */
+    public String getMetricsReportFile() {
+        return metricsReportFile;
+    }
+
+    /**
+     * @param metricsReportFile the metricsReportFile to set
+     */
+    public void setMetricsReportFile(String metricsReportFile) {
+        this.metricsReportFile = metricsReportFile;
+    }
+
+    /**
+     * @param remoteRepositoryUri the remoteRepositoryUri to set
+     */
+    public void setRemoteRepositoryUri(String remoteRepositoryUri) {
+        this.remoteRepositoryUri = remoteRepositoryUri;
+    }
+
+    /**
+     * @param hostName the hostName to set
+     */
+    public void setHostName(String hostName) {
+        this.hostName = hostName;
+    }
+
+    /**
+     * @return the httpPort
+     */
+    public int getHttpPort() {
+        return httpPort;
+    }
+
+    /**
+     * @param httpPort the httpPort to set
+     */
+    public void setHttpPort(int httpPort) {
+        this.httpPort = httpPort;
+    }
+
+    /**
+     * @return the bareRepository
+     */
+    public boolean isBareRepository() {
+        return bareRepository;
+    }
+
+    /**
+     * @param bareRepository the bareRepository to set
+     */
+    public void setBareRepository(boolean bareRepository) {
+        this.bareRepository = bareRepository;
+    }
+
+    /**
+     * @return the additionalApplications
+     */
+    public String getAdditionalApplications() {
+        return additionalApplications;
+    }
+
+    /**
+     * @param additionalApplications the additionalApplications to set
+     */
+    public void setAdditionalApplications(String additionalApplications) {
+        this.additionalApplications = additionalApplications;
+    }
+
+    /**
+     * @return the gearPool
+     */
+    public String getGearPool() {
+        return gearPool;
+    }
+
+    /**
+     * @param gearPool the gearPool to set
+     */
+    public void setGearPool(String gearPool) {
+        this.gearPool = gearPool;
+    }
+
+    /**
+     * @return the gearPoolDirectory
+     */
+    public String getGearPoolDirectory() {
+        return gearPoolDirectory;
+    }
+
+    /**
+     * @param gearPoolDirectory the gearPoolDirectory to set
+     */
+    public void setGearPoolDirectory(String gearPoolDirectory) {
+        this.gearPoolDirectory = gearPoolDirectory;
+    }
+
+    /**
+     * @return the gearPoolLeaseTimeoutInSeconds
+     */
+    public long getGearPoolLeaseTimeoutInSeconds() {
+        return gearPoolLeaseTimeoutInSeconds;
+    }
+
+    /**
+     * @param gearPoolLeaseTimeoutInSeconds the gearPoolLeaseTimeoutInSeconds to set
+     */
+    public void setGearPoolLeaseTimeoutInSeconds(long gearPoolLeaseTimeoutInSeconds) {
+        this.gearPoolLeaseTimeoutInSeconds = gearPoolLeaseTimeoutInSeconds;
+    }
+
+    /**
+     * Gets configurations of all applications deployments are pushed to. The first one is this configuration, others
+     * are its copies which differ in the application name and SSH user name taken from {@code additionalApplications}.
+     *
+     * @return configurations of all target applications
+     * @throws ConfigurationException if additional applications are not in {@code application:sshUserName} format
+     */
+    public List<OpenShiftContainerConfiguration> getTargets() throws ConfigurationException {
+        List<OpenShiftContainerConfiguration> targets = new ArrayList<OpenShiftContainerConfiguration>();
+        targets.add(this);
+
+        for (String[] application : parseApplications("additionalApplications", additionalApplications)) {
+            OpenShiftContainerConfiguration copy = forApplication(application[0], application[1]);
+            copy.additionalApplications = null;
+            targets.add(copy);
+        }
+
+        return targets;
+    }
+
+    /**
+     * Gets applications of the gear pool
+     *
+     * @return list of application name and SSH user name pairs, empty if gear pool is not used
+     * @throws ConfigurationException if gear pool is not in {@code application:sshUserName} format
+     */
+    public List<String[]> getGearPoolApplications() throws ConfigurationException {
+        return parseApplications("gearPool", gearPool);
+    }
+
+    /**
+     * Creates a copy of this configuration which targets a different application in the same namespace
+     *
+     * @param application the application name
+     * @param sshUserName the SSH user name of the application
+     * @return Modified copy of this configuration
+     */
+    public OpenShiftContainerConfiguration forApplication(String application, String sshUserName) {
+        OpenShiftContainerConfiguration copy = copy();
+        copy.application = application;
+        copy.sshUserName = sshUserName;
+        // host name without the application name belongs to this application only
+        if (hostName != null && !hostName.contains("{application}")) {
+            copy.hostName = null;
+        }
+        return copy;
+    }
+
+    private List<String[]> parseApplications(String property, String value) throws ConfigurationException {
+        List<String[]> applications = new ArrayList<String[]>();
+        if (value == null || value.trim().length() == 0) {
+            return applications;
+        }
+
+        for (String application : value.split(",")) {
+            String[] parts = application.trim().split(":");
+            if (parts.length != 2 || parts[0].trim().length() == 0 || parts[1].trim().length() == 0) {
+                throw new ConfigurationException("Application <" + application
+                        + "> must be specified as application:sshUserName, please fix \"" + property
+                        + "\" property in Arquillian configuration");
+            }
+            applications.add(new String[] { parts[0].trim(), parts[1].trim() });
+        }
+        return applications;
+    }
+
+    private OpenShiftContainerConfiguration copy() {
+        try {
+            return (OpenShiftContainerConfiguration) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("Unable to copy OpenShift configuration", e);
+        }
+    }
+
     private URI constructRemoteRepositoryURI() throws URISyntaxException {
         StringBuilder sb = new StringBuilder("ssh://");
         sb.append(sshUserName).append("@").append(getHostName()).append("/~/git/").append(application).append(".git/");
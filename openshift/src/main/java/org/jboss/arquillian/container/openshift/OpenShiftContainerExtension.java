@@ -35,5 +35,6 @@ public class OpenShiftContainerExtension implements LoadableExtension {
         builder.service(DeployableContainer.class, OpenShiftContainer.class);
         builder.service(DeploymentExceptionTransformer.class, ExceptionTransformer.class);
         builder.service(CredentialsProvider.class, ArquillianConfigurationCredentialsProvider.class);
+        builder.observer(DeploymentBatchObserver.class);
     }
 }
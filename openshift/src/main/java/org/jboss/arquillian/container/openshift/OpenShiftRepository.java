@@ -16,12 +16,19 @@
  */
 package org.jboss.arquillian.container.openshift;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 import java.util.UUID;
 import java.util.logging.Level;
@@ -32,14 +39,29 @@ import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.api.errors.InvalidRemoteException;
 import org.eclipse.jgit.api.errors.TransportException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.RepositoryCache;
 import org.eclipse.jgit.transport.CredentialsProvider;
 import org.eclipse.jgit.transport.SshSessionFactory;
+import org.eclipse.jgit.util.FS;
+import org.eclipse.jgit.util.FileUtils;
+import org.jboss.arquillian.container.openshift.archive.ArchiveExporter;
+import org.jboss.arquillian.container.openshift.archive.ArchiveUtil;
 import org.jboss.arquillian.container.openshift.auth.ArquillianSshSessionFactory;
+import org.jboss.arquillian.container.openshift.metrics.Metrics;
+import org.jboss.arquillian.container.openshift.metrics.ObjectCountingMonitor;
+import org.jboss.arquillian.container.openshift.metrics.Phase;
+import org.jboss.arquillian.container.openshift.util.CloneCache;
+import org.jboss.arquillian.container.openshift.util.GitTransaction;
 import org.jboss.arquillian.container.openshift.util.GitUtil;
 import org.jboss.arquillian.container.openshift.util.IOUtils;
+import org.jboss.arquillian.container.openshift.util.LockFile;
 import org.jboss.arquillian.container.openshift.util.MarkingUtil;
 import org.jboss.arquillian.core.spi.Validate;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.asset.Asset;
 
 /**
  * Abstraction of a Git repository for OpenShift.
@@ -61,8 +83,21 @@ public class OpenShiftRepository {
 
     private Set<String> deployments;
 
+    private final Map<String, String> contentHashes = new HashMap<String, String>();
+
     private String lastSavedState;
 
+    private final Metrics metrics;
+
+    // archive exported by the last check of deployed content, so it is not exported again when it is added
+    private ExportedArchive lastExported;
+
+    private LockFile cacheLock;
+
+    private GitTransaction transaction;
+
+    private final List<String> transactionMessages = new ArrayList<String>();
+
     /**
      * Connects to remote repository and clones it to a temporary location on local file system. Determines deployments
      * directory based on cartridge type.
@@ -70,8 +105,21 @@ public class OpenShiftRepository {
      * @param configuration the configuration
      */
     public OpenShiftRepository(OpenShiftContainerConfiguration configuration, CredentialsProvider credentialsProvider) {
+        this(configuration, credentialsProvider, Metrics.disabled());
+    }
+
+    /**
+     * Connects to remote repository and clones it to a temporary location on local file system. Determines deployments
+     * directory based on cartridge type. Git operations are recorded to the metrics.
+     *
+     * @param configuration the configuration
+     * @param metrics the metrics
+     */
+    public OpenShiftRepository(OpenShiftContainerConfiguration configuration, CredentialsProvider credentialsProvider,
+            Metrics metrics) {
 
         this.configuration = configuration;
+        this.metrics = metrics;
         this.credentialsProvider = credentialsProvider;
         this.deployments = new LinkedHashSet<String>();
 
@@ -114,8 +162,9 @@ public class OpenShiftRepository {
     }
 
     public OpenShiftRepository markArquillianLifeCycle() {
-        markingUtil.markArquillianLifecycle();
-        git.commit(identification, "Starting Arquillian lifecycle on OpenShift container");
+        GitTransaction tx = git.begin();
+        markingUtil.markArquillianLifecycle(tx);
+        tx.commit(identification, "Starting Arquillian lifecycle on OpenShift container");
 
         // no push, push will happen during first deployment
 
@@ -123,8 +172,9 @@ public class OpenShiftRepository {
     }
 
     public OpenShiftRepository unmarkArquillianLifeCycle() {
-        markingUtil.unmarkArquillianLifecycle();
-        git.commit(identification, "Stopping Arquillian lifecycle on OpenShift container");
+        GitTransaction tx = git.begin();
+        markingUtil.unmarkArquillianLifecycle(tx);
+        tx.commit(identification, "Stopping Arquillian lifecycle on OpenShift container");
         git.push(credentialsProvider);
         return this;
     }
@@ -153,6 +203,17 @@ public class OpenShiftRepository {
      * @return Modified repository
      */
     public OpenShiftRepository add(String path, InputStream content) {
+        // bare repository stores content directly as a Git object
+        if (git.isBare()) {
+            try {
+                return commitDeployment(path, IOUtils.toByteArray(content));
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to copy context to the Git repository", e);
+            } finally {
+                IOUtils.closeQuietly(content);
+            }
+        }
+
         // store file
         try {
             storeAsFileInRepository(path, content);
@@ -164,17 +225,89 @@ public class OpenShiftRepository {
             log.fine("Copied " + path + " to the local repository");
         }
 
-        // add file to repository
+        return commitDeployment(path, null);
+    }
+
+    /**
+     * Adds and commits the archive exported in ZIP format under given path in the deployments directory. The archive
+     * is exported directly into the repository, without an intermediate stream. In a bare repository, the archive is
+     * exported into memory and stored as a Git object.
+     *
+     * @param path Path representing file name under deployments directory
+     * @param archive the archive to be stored
+     * @return Modified repository
+     */
+    public OpenShiftRepository add(String path, Archive<?> archive) {
+        ExportedArchive exported = export(path, archive);
+        contentHashes.put(path, exported.hash);
+
+        return commitDeployment(path, exported.content);
+    }
+
+    /**
+     * Checks whether the archive exported in ZIP format is byte-identical to the file stored under given path in the
+     * deployments directory of the remote repository. Such archive does not need to be committed nor pushed again.
+     *
+     * @param path Path representing file name under deployments directory
+     * @param archive the archive
+     * @return {@code true} if the same content was already pushed
+     */
+    public boolean isDeployed(String path, Archive<?> archive) {
+        // no need to export anything if there is nothing to compare with
+        ObjectId pushed = git.getPushedObjectId(asFilePattern(path));
+        if (pushed == null) {
+            return false;
+        }
+
+        ExportedArchive exported = export(path, archive);
+        ObjectId blobId = exported.content != null ? git.getBlobId(exported.content) : git.getBlobId(new File(
+                asRepositoryPath(path)));
+        if (!pushed.equals(blobId)) {
+            lastExported = exported;
+            return false;
+        }
+
         deployments.add(path);
-        git.add(asFilePattern(path));
-        markingUtil.mark(asFilePattern(path) + ".dodeploy");
+        contentHashes.put(path, exported.hash);
+        return true;
+    }
 
-        git.commit(identification, "Preparing " + path + " for OpenShift Deployment");
+    /**
+     * Adds and commits content of the archive exploded into a directory under given path in the deployments directory.
+     * Files which did not change since the previous deployment produce the very same Git objects, so only modified
+     * entries are transferred during push.
+     *
+     * @param path Path representing directory name under deployments directory
+     * @param archive the archive to be exploded
+     * @return Modified repository
+     */
+    public OpenShiftRepository addExploded(String path, Archive<?> archive) {
+        // exploded content is not hashed by the server
+        contentHashes.remove(path);
+
+        if (git.isBare()) {
+            return addExplodedToBare(path, archive);
+        }
+
+        // store exploded content
+        try {
+            storeAsDirectoryInRepository(path, archive);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to copy exploded archive to the Git repository", e);
+        }
 
         if (log.isLoggable(Level.FINE)) {
-            log.fine("Commited " + path + " to the repository");
+            log.fine("Exploded " + path + " to the local repository");
         }
 
+        // add directory to repository, including removal of files no longer present in the archive
+        deployments.add(path);
+        GitTransaction tx = staging();
+        tx.add(asFilePattern(path)).update(asFilePattern(path));
+        markingUtil.mark(tx, asFilePattern(path) + ".dodeploy");
+
+        commit(tx, "Preparing exploded " + path + " for OpenShift Deployment");
+
         return this;
     }
 
@@ -198,15 +331,81 @@ public class OpenShiftRepository {
      */
     public OpenShiftRepository remove(String path) {
         deployments.remove(path);
-        git.remove(asFilePattern(path));
-        markingUtil.unmark(asFilePattern(path) + ".dodeploy");
-        markingUtil.unmark(asFilePattern(path) + ".deployed");
+        contentHashes.remove(path);
+        GitTransaction tx = staging();
+        tx.remove(asFilePattern(path));
+        markingUtil.unmark(tx, asFilePattern(path) + ".dodeploy");
+        markingUtil.unmark(tx, asFilePattern(path) + ".deployed");
 
-        git.commit(identification, "Removing " + path + " Arquillian OpenShift Deployment");
-        if (log.isLoggable(Level.FINE)) {
-            log.fine("Commited " + path + " removal to the local repository");
+        commit(tx, "Removing " + path + " Arquillian OpenShift Deployment");
+
+        return this;
+    }
+
+    /**
+     * Gets SHA-1 digest of the archive stored under given path, as computed by the application server for deployed
+     * content
+     *
+     * @param path Path representing file name under deployments directory
+     * @return Hexadecimal digest or {@code null} if the path was not stored as an archive
+     */
+    public String getContentHash(String path) {
+        return contentHashes.get(path);
+    }
+
+    /**
+     * Starts a transaction. Until {@link #commitTransaction()} is called, additions and removals only stage their
+     * changes, which are then committed together.
+     *
+     * @return Modified repository
+     */
+    public OpenShiftRepository beginTransaction() {
+        if (transaction != null) {
+            throw new IllegalStateException("Transaction has already been started");
+        }
+        transaction = git.begin();
+        transactionMessages.clear();
+        return this;
+    }
+
+    /**
+     * Writes all changes staged since {@link #beginTransaction()} with a single commit
+     *
+     * @return Modified repository
+     */
+    public OpenShiftRepository commitTransaction() {
+        if (transaction == null) {
+            throw new IllegalStateException("Transaction has not been started");
         }
 
+        GitTransaction tx = transaction;
+        transaction = null;
+
+        if (!tx.isEmpty()) {
+            StringBuilder message = new StringBuilder();
+            for (String line : transactionMessages) {
+                message.append(line).append("\n");
+            }
+            tx.commit(identification, message.toString().trim());
+
+            if (log.isLoggable(Level.FINE)) {
+                log.fine("Commited " + transactionMessages + " to the local repository");
+            }
+        }
+        transactionMessages.clear();
+
+        return this;
+    }
+
+    /**
+     * Discards all changes staged since {@link #beginTransaction()}. Files already stored in the working tree are
+     * left there, but they are not committed.
+     *
+     * @return Modified repository
+     */
+    public OpenShiftRepository discardTransaction() {
+        transaction = null;
+        transactionMessages.clear();
         return this;
     }
 
@@ -233,6 +432,102 @@ public class OpenShiftRepository {
         return lastSavedState;
     }
 
+    /**
+     * Releases the local repository. If the repository was taken from the clone cache, it is returned to the cache.
+     */
+    public void close() {
+        git.close();
+        if (cacheLock != null) {
+            cacheLock.release();
+            cacheLock = null;
+        }
+    }
+
+    // entries of the archive replace whole content of the directory
+    private OpenShiftRepository addExplodedToBare(String path, Archive<?> archive) {
+        deployments.add(path);
+        GitTransaction tx = staging();
+        tx.remove(asFilePattern(path));
+        for (Entry<String, Asset> entry : ArchiveUtil.getExplodedContent(archive).entrySet()) {
+            InputStream is = entry.getValue().openStream();
+            try {
+                tx.add(asFilePattern(path) + "/" + entry.getKey(), IOUtils.toByteArray(is));
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to copy exploded archive to the Git repository", e);
+            } finally {
+                IOUtils.closeQuietly(is);
+            }
+        }
+        markingUtil.mark(tx, asFilePattern(path) + ".dodeploy");
+
+        commit(tx, "Preparing exploded " + path + " for OpenShift Deployment");
+
+        return this;
+    }
+
+    // adds file to repository and marks it for deployment, content is given for bare repository only
+    private OpenShiftRepository commitDeployment(String path, byte[] content) {
+        deployments.add(path);
+        GitTransaction tx = staging();
+        if (content != null) {
+            tx.add(asFilePattern(path), content);
+        } else {
+            tx.add(asFilePattern(path));
+        }
+        markingUtil.mark(tx, asFilePattern(path) + ".dodeploy");
+
+        commit(tx, "Preparing " + path + " for OpenShift Deployment");
+
+        return this;
+    }
+
+    // bare repository keeps the content in memory, otherwise it is exported to the working tree
+    private ExportedArchive export(String path, Archive<?> archive) {
+        ExportedArchive exported = lastExported;
+        lastExported = null;
+        if (exported != null && exported.path.equals(path) && exported.archive == archive) {
+            return exported;
+        }
+
+        Metrics.Timer timer = metrics.start(Phase.EXPORT, path);
+        try {
+            if (git.isBare()) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                String hash = ArchiveExporter.exportTo(archive, bytes);
+                timer.stop(bytes.size(), archive.getContent().size());
+                return new ExportedArchive(path, archive, hash, bytes.toByteArray());
+            }
+
+            File file = new File(asRepositoryPath(path));
+            String hash = ArchiveExporter.exportTo(archive, file);
+            timer.stop(file.length(), archive.getContent().size());
+            if (log.isLoggable(Level.FINE)) {
+                log.fine("Exported " + path + " to the local repository");
+            }
+            return new ExportedArchive(path, archive, hash, null);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to export archive to the Git repository", e);
+        }
+    }
+
+    // changes are staged in the current transaction, if there is any
+    private GitTransaction staging() {
+        return transaction != null ? transaction : git.begin();
+    }
+
+    // changes of the current transaction are committed later on
+    private void commit(GitTransaction tx, String message) {
+        if (tx == transaction) {
+            transactionMessages.add(message);
+            return;
+        }
+
+        tx.commit(identification, message);
+        if (log.isLoggable(Level.FINE)) {
+            log.fine("Commited \"" + message + "\" to the local repository");
+        }
+    }
+
     private void storeAsFileInRepository(String path, InputStream input) throws IOException {
         // create holder for the content
         File content = new File(asRepositoryPath(path));
@@ -245,12 +540,125 @@ public class OpenShiftRepository {
         IOUtils.closeQuietly(output);
     }
 
+    private void storeAsDirectoryInRepository(String path, Archive<?> archive) throws IOException {
+        File directory = new File(asRepositoryPath(path));
+        // previous deployment might have been stored as a file
+        if (directory.isFile()) {
+            directory.delete();
+        }
+        directory.mkdirs();
+
+        Map<String, Asset> content = ArchiveUtil.getExplodedContent(archive);
+
+        // get rid of files from previous deployment which are not part of the archive anymore
+        deleteStaleFiles(directory, "", content.keySet());
+
+        for (Entry<String, Asset> entry : content.entrySet()) {
+            File file = new File(directory, entry.getKey());
+            file.getParentFile().mkdirs();
+
+            InputStream input = entry.getValue().openStream();
+            OutputStream output = new FileOutputStream(file);
+            IOUtils.copy(input, output);
+
+            IOUtils.closeQuietly(input);
+            IOUtils.closeQuietly(output);
+        }
+    }
+
+    private void deleteStaleFiles(File directory, String prefix, Set<String> paths) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String path = prefix + file.getName();
+            if (file.isDirectory()) {
+                deleteStaleFiles(file, path + "/", paths);
+            } else if (!paths.contains(path)) {
+                file.delete();
+            }
+        }
+    }
+
     private void initialize() throws IOException, InvalidRemoteException, TransportException, GitAPIException {
+
+        String remoteUri = configuration.getRemoteRepositoryUri();
+
+        // reuse a clone from the cache, if it is not used by another container
+        if (configuration.getCloneCacheDirectory() != null) {
+            CloneCache cache = new CloneCache(new File(configuration.getCloneCacheDirectory()));
+            this.cacheLock = cache.lock(remoteUri);
+            if (cacheLock != null) {
+                File repository = cache.getRepositoryDirectory(remoteUri);
+                // bare and non-bare clones are kept apart
+                if (configuration.isBareRepository()) {
+                    repository = new File(repository.getPath() + Constants.DOT_GIT_EXT);
+                }
+                boolean initialized = false;
+                try {
+                    initializeCached(repository);
+                    initialized = true;
+                } finally {
+                    // other runs must not wait for a clone which is not used
+                    if (!initialized) {
+                        cacheLock.release();
+                        cacheLock = null;
+                    }
+                }
+                return;
+            }
+            log.info("Cached clone of " + remoteUri + " in " + cache.getCacheDirectory().getAbsolutePath()
+                    + " is used by another process, falling back to a temporary clone");
+        }
+
         File repository = File.createTempFile("arq-openshift", null);
         repository.delete();
         repository.mkdirs();
         repository.deleteOnExit();
 
+        clone(repository);
+    }
+
+    private void initializeCached(File repository) throws IOException, InvalidRemoteException, TransportException,
+            GitAPIException {
+
+        if (RepositoryCache.FileKey.isGitRepository(configuration.isBareRepository() ? repository : new File(
+                repository, Constants.DOT_GIT), FS.DETECTED)) {
+            try {
+                long beforeSync = System.currentTimeMillis();
+
+                GitUtil cached = new GitUtil(Git.open(repository));
+                cached.setMetrics(metrics);
+                cached.synchronizeWithRemote(credentialsProvider, configuration.isCloneSingleBranch());
+                this.git = cached;
+                this.markingUtil = new MarkingUtil(git);
+                this.identification = new PersonIdent("Arquillian OpenShift Container", "arquillian@jboss.org");
+
+                if (log.isLoggable(Level.FINE)) {
+                    log.fine("Synchronized cached repository at " + repository.getAbsolutePath() + " with "
+                            + configuration.getRemoteRepositoryUri() + " in " + (System.currentTimeMillis() - beforeSync)
+                            + "ms");
+                }
+                return;
+            } catch (IOException e) {
+                log.warning("Unable to reuse cached repository at " + repository.getAbsolutePath()
+                        + ", it will be cloned again. Cause: " + e.getMessage());
+            } catch (IllegalStateException e) {
+                log.warning("Unable to reuse cached repository at " + repository.getAbsolutePath()
+                        + ", it will be cloned again. Cause: " + e.getMessage());
+            }
+        }
+
+        // clone is missing or corrupted
+        FileUtils.delete(repository, FileUtils.RECURSIVE | FileUtils.SKIP_MISSING);
+        repository.mkdirs();
+
+        clone(repository);
+    }
+
+    private void clone(File repository) throws InvalidRemoteException, TransportException, GitAPIException {
+
         if (log.isLoggable(Level.FINE)) {
             log.fine("Preparing to clone " + configuration.getRemoteRepositoryUri() + " to " + repository.getAbsolutePath());
         }
@@ -258,8 +666,24 @@ public class OpenShiftRepository {
         CloneCommand cloneCmd = Git.cloneRepository();
         cloneCmd.setDirectory(repository).setURI(configuration.getRemoteRepositoryUri());
         cloneCmd.setCredentialsProvider(credentialsProvider);
+        cloneCmd.setBare(configuration.isBareRepository());
+
+        // the container only commits on top of the branch and pushes it, there is no need to fetch other branches
+        String branch = Constants.R_HEADS + configuration.getCloneBranch();
+        cloneCmd.setBranch(branch);
+        if (configuration.isCloneSingleBranch()) {
+            cloneCmd.setCloneAllBranches(false);
+            cloneCmd.setBranchesToClone(Collections.singletonList(branch));
+        }
+
+        ObjectCountingMonitor monitor = new ObjectCountingMonitor();
+        cloneCmd.setProgressMonitor(monitor);
+        Metrics.Timer timer = metrics.start(Phase.CLONE, configuration.getRemoteRepositoryUri());
 
         this.git = new GitUtil(cloneCmd.call());
+        git.setMetrics(metrics);
+        git.markSynchronized();
+        timer.stop(git.getPackSize(), monitor.getObjects());
         this.markingUtil = new MarkingUtil(git);
 
         if (log.isLoggable(Level.FINE)) {
@@ -281,4 +705,19 @@ public class OpenShiftRepository {
         return sb.append(configuration.getCartridgeType().getDeploymentDir()).append(path).toString();
     }
 
+    private static class ExportedArchive {
+        final String path;
+        final Archive<?> archive;
+        final String hash;
+        // only for bare repository
+        final byte[] content;
+
+        ExportedArchive(String path, Archive<?> archive, String hash, byte[] content) {
+            this.path = path;
+            this.archive = archive;
+            this.hash = hash;
+            this.content = content;
+        }
+    }
+
 }
@@ -0,0 +1,194 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.openshift;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.jboss.arquillian.container.openshift.util.IOUtils;
+import org.jboss.arquillian.container.spi.client.protocol.metadata.Servlet;
+
+/**
+ * A cache of servlets found in deployments, keyed by the content digest of the archive. Servlets are kept as pairs of
+ * servlet name and context root, because {@link Servlet} instances are bound to the context they are added to.
+ *
+ * <p>
+ * Entries are kept in memory in a least recently used manner and shared by all parsers in the JVM. If a store
+ * directory is given, entries are also persisted there, so they survive between runs. Persisted entries carry the
+ * format version, entries written by a different version are ignored.
+ * </p>
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+class ProtocolMetaDataCache {
+    private static final Logger log = Logger.getLogger(ProtocolMetaDataCache.class.getName());
+
+    private static final int MAX_ENTRIES = 64;
+
+    // increased whenever servlets found in the same archive change, e.g. by a fix of the class file scanner
+    static final int FORMAT_VERSION = 2;
+
+    private static final String STORE_SUFFIX = ".properties";
+
+    private static final Map<String, List<String[]>> entries = Collections
+            .synchronizedMap(new LinkedHashMap<String, List<String[]>>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, List<String[]>> eldest) {
+                    return size() > MAX_ENTRIES;
+                }
+            });
+
+    private final File storeDirectory;
+
+    /**
+     * Creates a cache
+     *
+     * @param storeDirectory the directory where entries are persisted, can be {@code null}
+     */
+    ProtocolMetaDataCache(File storeDirectory) {
+        this.storeDirectory = storeDirectory;
+    }
+
+    /**
+     * Gets servlets found in an archive with given digest
+     *
+     * @param digest the content digest of the archive
+     * @return the servlet name and context root pairs or {@code null} if the archive was not parsed yet
+     */
+    List<String[]> get(String digest) {
+        List<String[]> servlets = entries.get(digest);
+        if (servlets == null && storeDirectory != null) {
+            servlets = load(digest);
+            if (servlets != null) {
+                entries.put(digest, servlets);
+            }
+        }
+        return servlets;
+    }
+
+    /**
+     * Stores servlets found in an archive with given digest
+     *
+     * @param digest the content digest of the archive
+     * @param servlets the servlet name and context root pairs
+     */
+    void put(String digest, List<String[]> servlets) {
+        List<String[]> copy = Collections.unmodifiableList(new ArrayList<String[]>(servlets));
+        entries.put(digest, copy);
+        if (storeDirectory != null) {
+            store(digest, copy);
+        }
+    }
+
+    /**
+     * Removes all entries kept in memory. Persisted entries are not affected.
+     */
+    static void clear() {
+        entries.clear();
+    }
+
+    private List<String[]> load(String digest) {
+        File file = new File(storeDirectory, getStoreName(digest));
+        if (!file.isFile()) {
+            return null;
+        }
+
+        InputStream is = null;
+        try {
+            is = new FileInputStream(file);
+            Properties props = new Properties();
+            props.load(is);
+
+            // entry written by a different scanner, it will be overwritten
+            if (!String.valueOf(FORMAT_VERSION).equals(props.getProperty("version"))) {
+                return null;
+            }
+
+            int count = Integer.parseInt(props.getProperty("servlets"));
+            List<String[]> servlets = new ArrayList<String[]>(count);
+            for (int i = 0; i < count; i++) {
+                servlets.add(new String[] { props.getProperty(i + ".name"), props.getProperty(i + ".contextRoot") });
+            }
+            return Collections.unmodifiableList(servlets);
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Unable to read cached metadata from " + file + ", ignoring", e);
+        } catch (RuntimeException e) {
+            // corrupted entry, it will be overwritten
+            log.log(Level.WARNING, "Unable to read cached metadata from " + file + ", ignoring", e);
+        } finally {
+            IOUtils.closeQuietly(is);
+        }
+        return null;
+    }
+
+    private void store(String digest, List<String[]> servlets) {
+        if (!storeDirectory.isDirectory() && !storeDirectory.mkdirs()) {
+            log.warning("Unable to create metadata cache directory " + storeDirectory);
+            return;
+        }
+
+        Properties props = new Properties();
+        props.setProperty("version", String.valueOf(FORMAT_VERSION));
+        props.setProperty("servlets", String.valueOf(servlets.size()));
+        for (int i = 0; i < servlets.size(); i++) {
+            props.setProperty(i + ".name", servlets.get(i)[0]);
+            props.setProperty(i + ".contextRoot", servlets.get(i)[1]);
+        }
+
+        // write to a temporary file first, so other JVMs never read a partially written entry
+        File file = new File(storeDirectory, getStoreName(digest));
+        File tmp = new File(storeDirectory, getStoreName(digest) + ".tmp" + System.nanoTime());
+        OutputStream os = null;
+        try {
+            os = new FileOutputStream(tmp);
+            props.store(os, "Servlets found in the archive");
+            os.close();
+            os = null;
+            if (!tmp.renameTo(file)) {
+                file.delete();
+                if (!tmp.renameTo(file)) {
+                    log.warning("Unable to store cached metadata to " + file);
+                }
+            }
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Unable to store cached metadata to " + file, e);
+        } finally {
+            IOUtils.closeQuietly(os);
+            tmp.delete();
+        }
+    }
+
+    // entries of older versions are not even opened
+    static String getStoreName(String digest) {
+        return digest + "-v" + FORMAT_VERSION + STORE_SUFFIX;
+    }
+}
@@ -16,7 +16,9 @@
  */
 package org.jboss.arquillian.container.openshift;
 
+import java.io.File;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -54,6 +56,8 @@ public class ProtocolMetaDataParser {
 
     private OpenShiftContainerConfiguration configuration;
 
+    private ProtocolMetaDataCache cache;
+
     /**
      * Create parser
      *
@@ -64,40 +68,67 @@ public class ProtocolMetaDataParser {
             throw new IllegalArgumentException("OpenShift Configuration must be specified");
         }
         this.configuration = configuration;
+
+        String storeDirectory = configuration.getMetadataCacheDirectory();
+        this.cache = new ProtocolMetaDataCache(storeDirectory == null ? null : new File(storeDirectory));
     }
 
     /**
-     * Extract metadata information from the deployment
+     * Extract metadata information from the deployment. Servlets of an archive with the same content as an archive
+     * parsed before are taken from the cache.
      *
      * @param deployment the archive
      * @return Metadata information
      */
     public ProtocolMetaData parse(Archive<?> deployment) {
         ProtocolMetaData protocol = new ProtocolMetaData();
-        HTTPContext context = new HTTPContext(configuration.getHostName(), 80);
+        HTTPContext context = new HTTPContext(configuration.getHostName(), configuration.getHttpPort());
         protocol.addContext(context);
 
-        if (ArchiveUtil.isWarArchive(deployment)) {
-            extractWebArchiveContexts(context, (WebArchive) deployment);
-        } else if (ArchiveUtil.isEarArchive(deployment)) {
-            extractEnterpriseArchiveContexts(context, (EnterpriseArchive) deployment);
+        if (!ArchiveUtil.isWarArchive(deployment) && !ArchiveUtil.isEarArchive(deployment)) {
+            return protocol;
+        }
+
+        String digest = ArchiveUtil.getContentDigest(deployment);
+        List<String[]> servlets = cache.get(digest);
+        if (servlets == null) {
+            servlets = new ArrayList<String[]>();
+            if (ArchiveUtil.isWarArchive(deployment)) {
+                extractWebArchiveContexts(servlets, (WebArchive) deployment);
+            } else {
+                extractEnterpriseArchiveContexts(servlets, (EnterpriseArchive) deployment);
+            }
+            cache.put(digest, servlets);
+        } else if (log.isLoggable(Level.FINE)) {
+            log.fine("Servlets of " + deployment.getName() + " were found in the cache under " + digest);
+        }
+
+        // servlets are bound to the context, so each context gets its own
+        for (String[] nameAndContextRoot : servlets) {
+            Servlet servlet = new Servlet(nameAndContextRoot[0], nameAndContextRoot[1]);
+            context.add(servlet);
+
+            if (log.isLoggable(Level.FINE)) {
+                log.fine("Context " + context.getHost() + " enriched with " + servlet.getName() + " at "
+                        + servlet.getContextRoot());
+            }
         }
 
         return protocol;
     }
 
-    private void extractEnterpriseArchiveContexts(HTTPContext context, EnterpriseArchive deployment) {
+    private void extractEnterpriseArchiveContexts(List<String[]> servlets, EnterpriseArchive deployment) {
 
         for (WebArchive war : deployment.getAsType(WebArchive.class, AssetUtil.WAR_FILTER)) {
-            extractEnterpriseWebArchiveContexts(context, deployment, war);
+            extractEnterpriseWebArchiveContexts(servlets, deployment, war);
         }
     }
 
-    private void extractWebArchiveContexts(HTTPContext context, WebArchive deployment) {
-        extractWebContext(context, deployment.getName(), deployment);
+    private void extractWebArchiveContexts(List<String[]> servlets, WebArchive deployment) {
+        extractWebContext(servlets, deployment.getName(), deployment);
     }
 
-    private void extractEnterpriseWebArchiveContexts(HTTPContext context, EnterpriseArchive enterpriseDeployment,
+    private void extractEnterpriseWebArchiveContexts(List<String[]> servlets, EnterpriseArchive enterpriseDeployment,
             WebArchive webDeployment) {
 
         String deploymentName = webDeployment.getName();
@@ -106,23 +137,15 @@ public class ProtocolMetaDataParser {
             if (contextRoot == null) {
                 contextRoot = toContextRoot(deploymentName, webDeployment);
             }
-            context.add(new Servlet(servletName, contextRoot));
-
-            if (log.isLoggable(Level.FINE)) {
-                log.fine("Context " + context.getHost() + " enriched with " + servletName + " at " + contextRoot);
-            }
+            servlets.add(new String[] { servletName, contextRoot });
         }
     }
 
-    private void extractWebContext(HTTPContext context, String deploymentName, WebArchive deployment) {
+    private void extractWebContext(List<String[]> servlets, String deploymentName, WebArchive deployment) {
 
         for (String servletName : ServletUtils.getServletNames(deployment)) {
             String contextRoot = toContextRoot(deploymentName, deployment);
-            context.add(new Servlet(servletName, contextRoot));
-
-            if (log.isLoggable(Level.FINE)) {
-                log.fine("Context " + context.getHost() + " enriched with " + servletName + " at " + contextRoot);
-            }
+            servlets.add(new String[] { servletName, contextRoot });
         }
 
     }
@@ -0,0 +1,282 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.openshift;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.jboss.arquillian.container.openshift.util.IOUtils;
+
+/**
+ * Repeatedly probes an url until it returns HTTP 200 response or a timeout elapses.
+ *
+ * <p>
+ * Probes are sent over keep-alive connections, response bodies are always drained so the connection is returned to the
+ * JVM connection cache and reused by the next probe. A probe answered by HTTP 202 after the server held it for the
+ * whole long poll is repeated immediately. Any other HTTP 202 or 204 answer comes from a server which does not hold
+ * requests, so it is treated as a failure and the next probe is delayed. HTTP 409 means the ping servlet knows the deployment
+ * failed, so probing ends right away. Other failures are retried with an exponential backoff with
+ * jitter, preceded by a fast-poll phase with the initial interval.
+ * </p>
+ *
+ * <p>
+ * Prober keeps timings of the last {@link #await(String, long)} call, so the deployment timeout can be tuned based on
+ * real data. Body of the last response is kept as well, so the caller can find out what was not ready.
+ * </p>
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+class ReadinessProber {
+    private static final Logger log = Logger.getLogger(ReadinessProber.class.getName());
+
+    // the ping servlet holds the request for this time unless the deployment appears earlier
+    static final long LONG_POLL_MILLIS = 10000;
+
+    // a probe which took at least this portion of the wait was held by the server
+    private static final double LONG_POLL_PORTION = 0.9;
+
+    // portion of the interval randomly added or subtracted
+    private static final double JITTER = 0.2;
+
+    private final long initialInterval;
+
+    private final long maxInterval;
+
+    private final double multiplier;
+
+    private final int fastPollCount;
+
+    private final Random random = new Random();
+
+    private final List<Long> probeTimes = new ArrayList<Long>();
+
+    private long waitTime;
+
+    private byte[] lastResponse = new byte[0];
+
+    /**
+     * Creates a prober with backoff settings taken from configuration
+     *
+     * @param configuration the configuration
+     */
+    ReadinessProber(OpenShiftContainerConfiguration configuration) {
+        this(configuration.getReadinessPollIntervalInMillis(), configuration.getReadinessMaxPollIntervalInMillis(),
+                configuration.getReadinessBackoffMultiplier(), configuration.getReadinessFastPollCount());
+    }
+
+    /**
+     * Creates a prober
+     *
+     * @param initialInterval interval between probes during fast-poll phase
+     * @param maxInterval upper bound of the interval between probes
+     * @param multiplier factor the interval grows by after fast-poll phase
+     * @param fastPollCount number of probes sent with the initial interval
+     */
+    ReadinessProber(long initialInterval, long maxInterval, double multiplier, int fastPollCount) {
+        this.initialInterval = Math.max(1, initialInterval);
+        this.maxInterval = Math.max(this.initialInterval, maxInterval);
+        this.multiplier = Math.max(1.0, multiplier);
+        this.fastPollCount = Math.max(0, fastPollCount);
+    }
+
+    /**
+     * Probes the url until it returns HTTP 200 response
+     *
+     * @param url the url, it is extended with a {@code wait} parameter for the long poll
+     * @param timeout the absolute time in milliseconds when probing is abandoned
+     * @return {@code true} if the url returned HTTP 200 before timeout, {@code false} otherwise or if a failure was
+     *         reported
+     */
+    public boolean await(String url, long timeout) {
+        long start = System.currentTimeMillis();
+        probeTimes.clear();
+        lastResponse = new byte[0];
+
+        boolean interrupted = false;
+        boolean ready = false;
+        int failures = 0;
+        long remaining;
+        while ((remaining = timeout - System.currentTimeMillis()) > 0) {
+            long wait = Math.min(LONG_POLL_MILLIS, remaining);
+            int responseCode = probe(url + (url.indexOf('?') == -1 ? "?" : "&") + "wait=" + wait, wait);
+            if (responseCode == HttpURLConnection.HTTP_OK) {
+                ready = true;
+                break;
+            }
+            // deployment failed, there is nothing to wait for
+            if (responseCode == HttpURLConnection.HTTP_CONFLICT) {
+                break;
+            }
+            // the ping servlet has already waited for the deployment, ask again right away
+            if (responseCode == HttpURLConnection.HTTP_ACCEPTED
+                    && probeTimes.get(probeTimes.size() - 1) >= wait * LONG_POLL_PORTION) {
+                continue;
+            }
+            // ping servlet itself is not reachable yet or it answered without waiting
+            try {
+                Thread.sleep(Math.min(nextInterval(failures++), Math.max(0, timeout - System.currentTimeMillis())));
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        this.waitTime = System.currentTimeMillis() - start;
+
+        if (log.isLoggable(Level.FINE)) {
+            log.fine((ready ? "Url " + url + " was available" : "Url " + url + " was not available") + " after " + waitTime
+                    + "ms, " + getProbeCount() + " probes, average probe took " + getAverageProbeTime() + "ms, longest "
+                    + getMaxProbeTime() + "ms");
+        }
+
+        return ready;
+    }
+
+    /**
+     * @return number of probes sent during the last {@link #await(String, long)} call
+     */
+    public int getProbeCount() {
+        return probeTimes.size();
+    }
+
+    /**
+     * @return durations of probes sent during the last {@link #await(String, long)} call, in milliseconds
+     */
+    public List<Long> getProbeTimes() {
+        return Collections.unmodifiableList(probeTimes);
+    }
+
+    /**
+     * @return average duration of a probe sent during the last {@link #await(String, long)} call, in milliseconds
+     */
+    public long getAverageProbeTime() {
+        if (probeTimes.isEmpty()) {
+            return 0;
+        }
+        long total = 0;
+        for (Long time : probeTimes) {
+            total += time;
+        }
+        return total / probeTimes.size();
+    }
+
+    /**
+     * @return duration of the longest probe sent during the last {@link #await(String, long)} call, in milliseconds
+     */
+    public long getMaxProbeTime() {
+        long max = 0;
+        for (Long time : probeTimes) {
+            max = Math.max(max, time);
+        }
+        return max;
+    }
+
+    /**
+     * @return total duration of the last {@link #await(String, long)} call, in milliseconds
+     */
+    public long getWaitTime() {
+        return waitTime;
+    }
+
+    /**
+     * @return body of the last response received during the last {@link #await(String, long)} call, empty if there was
+     *         none
+     */
+    public byte[] getLastResponse() {
+        return lastResponse;
+    }
+
+    long nextInterval(int failures) {
+        double interval = initialInterval;
+        if (failures >= fastPollCount) {
+            interval = Math.min(maxInterval, initialInterval * Math.pow(multiplier, failures - fastPollCount + 1));
+        }
+        double jitter = interval * JITTER * (2 * random.nextDouble() - 1);
+        return Math.max(1, Math.round(interval + jitter));
+    }
+
+    private int probe(String url, long wait) {
+
+        long beforeProbe = System.currentTimeMillis();
+        HttpURLConnection httpConnection = null;
+
+        try {
+            URLConnection connection = new URL(url).openConnection();
+            if (!(connection instanceof HttpURLConnection)) {
+                throw new IllegalStateException("Not an http connection! " + connection);
+            }
+
+            httpConnection = (HttpURLConnection) connection;
+            httpConnection.setUseCaches(false);
+            httpConnection.setDoInput(true);
+            httpConnection.setRequestMethod("GET");
+            httpConnection.setDoOutput(false);
+            // server is allowed to hold the request for the whole wait
+            httpConnection.setReadTimeout((int) wait + 5000);
+
+            int responseCode = httpConnection.getResponseCode();
+            lastResponse = drain(httpConnection);
+            return responseCode;
+        } catch (IOException e) {
+            if (log.isLoggable(Level.FINER)) {
+                log.finer("Probe of " + url + " failed: " + e.getMessage());
+            }
+            return -1;
+        } finally {
+            probeTimes.add(System.currentTimeMillis() - beforeProbe);
+        }
+    }
+
+    // reading the whole response lets JVM put the connection back to keep-alive cache
+    private byte[] drain(HttpURLConnection connection) {
+        InputStream is = null;
+        try {
+            is = connection.getInputStream();
+        } catch (IOException e) {
+            is = connection.getErrorStream();
+        }
+        if (is == null) {
+            return new byte[0];
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try {
+            byte[] buffer = new byte[512];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                body.write(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            // ignore, connection will not be reused
+        } finally {
+            IOUtils.closeQuietly(is);
+        }
+        return body.toByteArray();
+    }
+}
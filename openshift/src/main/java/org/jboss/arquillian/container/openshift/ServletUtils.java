@@ -16,14 +16,13 @@
  */
 package org.jboss.arquillian.container.openshift;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
 import org.jboss.arquillian.container.openshift.archive.ArchiveUtil;
+import org.jboss.arquillian.container.openshift.archive.ClassFileInfo;
 import org.jboss.arquillian.protocol.servlet.ServletMethodExecutor;
 import org.jboss.arquillian.protocol.servlet.runner.ServletTestRunner;
 import org.jboss.shrinkwrap.api.Archive;
@@ -45,6 +44,9 @@ class ServletUtils {
      * of the class is returned.
      *
      * <p>
+     * Classes are never loaded, both type hierarchy and annotations are read from class files in the archive.
+     * </p>
+     * <p>
      * If no javax.servlet.Servlet is found on the class path the only name returned is Arquillian Runner.
      * </p>
      * <p>
@@ -61,15 +63,11 @@ class ServletUtils {
             return Collections.singletonList(ServletMethodExecutor.ARQUILLIAN_SERVLET_NAME);
         }
 
-        // this is nasty but we can't determine this dynamically
-        @SuppressWarnings("rawtypes")
-        Class javaxServlet = forName(SERVLET_CLASS_NAME);
-        @SuppressWarnings({ "rawtypes", "unchecked" })
-        Collection servlets = ArchiveUtil.getDefinedClassesOf(deployment, javaxServlet);
+        Collection<ClassFileInfo> servlets = ArchiveUtil.getDefinedClassInfosOf(deployment, SERVLET_CLASS_NAME);
 
         List<String> names = new ArrayList<String>(servlets.size());
-        for (Object servletClass : servlets) {
-            names.add(getServletName((Class<?>) servletClass));
+        for (ClassFileInfo servletClass : servlets) {
+            names.add(getServletName(servletClass));
         }
 
         // jsp/default servlet for WAR archives
@@ -81,42 +79,17 @@ class ServletUtils {
 
     }
 
-    @SuppressWarnings({ "unchecked", "rawtypes" })
-    private static String getServletName(Class<?> clazz) {
+    private static String getServletName(ClassFileInfo servletClass) {
 
         // FIXME scan for web.xml
 
-        // dynamically scan for annotation
-        if (!isWebServletAnnotationOnClasspath()) {
-            return applyArquillianHook(clazz.getSimpleName());
-        }
-
-        Class webServlet = forName(WEB_SERVLET_ANNOTATION_CLASS_NAME);
-        if (clazz.isAnnotationPresent(webServlet)) {
-            Object webServletAnnon = clazz.getAnnotation(webServlet);
-
-            Method nameMethod = SecurityActions.getMethod(webServlet, "name");
-            if (nameMethod != null) {
-                String servletName = null;
-                try {
-                    servletName = (String) nameMethod.invoke(webServletAnnon);
-                } catch (IllegalArgumentException e) {
-                    // ignore
-                } catch (IllegalAccessException e) {
-                    // ignore
-                } catch (InvocationTargetException e) {
-                    // ignore
-                }
-
-                if (servletName != null && servletName.length() != 0) {
-                    return servletName;
-                }
-            }
-
+        String servletName = servletClass.getAnnotationValue(WEB_SERVLET_ANNOTATION_CLASS_NAME, "name");
+        if (servletName != null && servletName.length() != 0) {
+            return servletName;
         }
 
         // name was not found in annotation, revert to simple class name
-        return applyArquillianHook(clazz.getSimpleName());
+        return applyArquillianHook(servletClass.getSimpleName());
     }
 
     private static final String applyArquillianHook(String name) {
@@ -131,10 +104,6 @@ class ServletUtils {
         return classExists(SERVLET_CLASS_NAME);
     }
 
-    private static final boolean isWebServletAnnotationOnClasspath() {
-        return classExists(WEB_SERVLET_ANNOTATION_CLASS_NAME);
-    }
-
     private static final boolean classExists(String className) {
         {
             try {
@@ -145,14 +114,4 @@ class ServletUtils {
             }
         }
     }
-
-    private static final Class<?> forName(String className) {
-        {
-            try {
-                return Class.forName(className);
-            } catch (ClassNotFoundException exception) {
-                return null;
-            }
-        }
-    }
-}
\ No newline at end of file
+}
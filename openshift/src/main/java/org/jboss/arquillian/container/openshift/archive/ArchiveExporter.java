@@ -0,0 +1,237 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.openshift.archive;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.Map.Entry;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.jboss.arquillian.container.openshift.util.HexUtils;
+import org.jboss.arquillian.container.openshift.util.IOUtils;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.asset.ArchiveAsset;
+import org.jboss.shrinkwrap.api.asset.Asset;
+
+/**
+ * Exports archives in ZIP format directly into a file or a stream.
+ *
+ * <p>
+ * Unlike {@link org.jboss.shrinkwrap.api.exporter.ZipExporter#exportAsInputStream()}, no pipe and no additional thread
+ * is involved. Compressed data are collected in a direct buffer and written to the file channel in large chunks. Nested
+ * archives are compressed inline, without being exported into memory first. Modification time of all entries is the
+ * same, so an unchanged archive is exported into identical bytes.
+ * </p>
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class ArchiveExporter {
+    private static final Logger log = Logger.getLogger(ArchiveExporter.class.getName());
+
+    private static final int CHANNEL_BUFFER_SIZE = 256 * 1024;
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    // entries have a fixed time, so the same archive is always exported into the same bytes
+    private static final long ENTRY_TIME = new GregorianCalendar(2000, Calendar.JANUARY, 1).getTimeInMillis();
+
+    /**
+     * Exports the archive in ZIP format into a file. Existing file is overwritten.
+     *
+     * @param archive Archive to be exported
+     * @param target the file
+     * @return Hexadecimal SHA-1 digest of the exported bytes
+     * @throws IOException if the archive could not be written
+     */
+    public static String exportTo(Archive<?> archive, File target) throws IOException {
+
+        long beforeExport = System.currentTimeMillis();
+
+        MessageDigest digest = newDigest();
+        FileOutputStream fos = new FileOutputStream(target);
+        try {
+            ZipOutputStream zip = new ZipOutputStream(new DigestOutputStream(new ChannelOutputStream(fos.getChannel(),
+                    CHANNEL_BUFFER_SIZE), digest));
+            write(zip, archive, new byte[COPY_BUFFER_SIZE]);
+            // flushes the remaining data to the channel
+            zip.close();
+        } finally {
+            IOUtils.closeQuietly(fos);
+        }
+
+        if (log.isLoggable(Level.FINE)) {
+            log.fine("Export of " + archive.getName() + " to " + target + " took "
+                    + (System.currentTimeMillis() - beforeExport) + "ms");
+        }
+
+        return HexUtils.toHexString(digest.digest());
+    }
+
+    /**
+     * Exports the archive in ZIP format into a stream. The stream is not closed.
+     *
+     * @param archive Archive to be exported
+     * @param target the stream
+     * @return Hexadecimal SHA-1 digest of the exported bytes
+     * @throws IOException if the archive could not be written
+     */
+    public static String exportTo(Archive<?> archive, OutputStream target) throws IOException {
+        MessageDigest digest = newDigest();
+        ZipOutputStream zip = new ZipOutputStream(new DigestOutputStream(new UnclosableOutputStream(target), digest));
+        write(zip, archive, new byte[COPY_BUFFER_SIZE]);
+        zip.finish();
+        zip.flush();
+
+        return HexUtils.toHexString(digest.digest());
+    }
+
+    // the same digest is used by the application server to identify deployment content
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Unable to compute a digest of exported archive", e);
+        }
+    }
+
+    private static void write(ZipOutputStream zip, Archive<?> archive, byte[] buffer) throws IOException {
+        for (Entry<ArchivePath, Node> node : archive.getContent().entrySet()) {
+            String name = ArchiveUtil.asRelativePath(node.getKey());
+            Asset asset = node.getValue().getAsset();
+
+            // directory
+            if (asset == null) {
+                zip.putNextEntry(newEntry(name + "/"));
+                zip.closeEntry();
+                continue;
+            }
+
+            zip.putNextEntry(newEntry(name));
+            if (asset instanceof ArchiveAsset) {
+                ZipOutputStream nested = new ZipOutputStream(new UnclosableOutputStream(zip));
+                write(nested, ((ArchiveAsset) asset).getArchive(), buffer);
+                // writes central directory of the nested archive, but leaves outer stream open
+                nested.finish();
+            } else {
+                InputStream is = asset.openStream();
+                try {
+                    int read;
+                    while ((read = is.read(buffer)) != -1) {
+                        zip.write(buffer, 0, read);
+                    }
+                } finally {
+                    IOUtils.closeQuietly(is);
+                }
+            }
+            zip.closeEntry();
+        }
+    }
+
+    private static ZipEntry newEntry(String name) {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setTime(ENTRY_TIME);
+        return entry;
+    }
+
+    // collects data in a direct buffer, so the channel does not have to copy them again
+    private static class ChannelOutputStream extends OutputStream {
+
+        private final FileChannel channel;
+
+        private final ByteBuffer buffer;
+
+        ChannelOutputStream(FileChannel channel, int bufferSize) {
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            buffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (!buffer.hasRemaining()) {
+                    drain();
+                }
+                int chunk = Math.min(len, buffer.remaining());
+                buffer.put(b, off, chunk);
+                off += chunk;
+                len -= chunk;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            drain();
+        }
+
+        @Override
+        public void close() throws IOException {
+            drain();
+            channel.close();
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    // nested archive must not close the stream of its parent
+    private static class UnclosableOutputStream extends FilterOutputStream {
+
+        UnclosableOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
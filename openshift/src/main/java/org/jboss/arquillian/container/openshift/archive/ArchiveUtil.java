@@ -16,18 +16,38 @@
  */
 package org.jboss.arquillian.container.openshift.archive;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.jboss.arquillian.container.openshift.util.HexUtils;
+import org.jboss.arquillian.container.openshift.util.IOUtils;
 import org.jboss.shrinkwrap.api.Archive;
 import org.jboss.shrinkwrap.api.ArchivePath;
 import org.jboss.shrinkwrap.api.Filter;
 import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.asset.ArchiveAsset;
+import org.jboss.shrinkwrap.api.asset.Asset;
 import org.jboss.shrinkwrap.api.spec.EnterpriseArchive;
 import org.jboss.shrinkwrap.api.spec.JavaArchive;
 import org.jboss.shrinkwrap.api.spec.WebArchive;
@@ -46,6 +66,10 @@ import org.jboss.shrinkwrap.api.spec.WebArchive;
  * <li>JAR - scan all classes</li>
  * </ul>
  *
+ * <p>
+ * Nested archives are scanned in parallel, but the order of the results is the same as if they were scanned one by one.
+ * </p>
+ *
  *
  * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
  * @author <a href="http://community.jboss.org/people/jharting">Jozef Hartinger</a>
@@ -54,6 +78,9 @@ import org.jboss.shrinkwrap.api.spec.WebArchive;
 public class ArchiveUtil {
     private static final Logger log = Logger.getLogger(ArchiveUtil.class.getName());
 
+    // shared by all scans, threads are created lazily and do not prevent JVM from exiting
+    private static ExecutorService scanExecutor;
+
     /**
      * Checks if archive is of type JAR
      *
@@ -85,7 +112,8 @@ public class ArchiveUtil {
     }
 
     /**
-     * Gets all classes from the archive which implement interface or are the subclass of given needle
+     * Gets all classes from the archive which implement interface or are the subclass of given needle. Type hierarchy is
+     * determined from class files first, so only classes matching the needle are defined by a class loader.
      *
      * @param <T> Type of objects to be found
      * @param archive Archive to be searched
@@ -96,9 +124,14 @@ public class ArchiveUtil {
 
         long beforeScanning = System.currentTimeMillis();
 
+        List<ScanUnit> units = getScanUnits(archive);
+        ClassLoader parent = Thread.currentThread().getContextClassLoader();
+        ClassHierarchy hierarchy = getClassHierarchy(archive, units, parent);
+
         Collection<String> classNames = new LinkedHashSet<String>();
         Collection<Class<T>> needleImpls = new LinkedHashSet<Class<T>>();
-        getDefinedClasses(classNames, needleImpls, archive, needle);
+        getDefinedClasses(classNames, needleImpls, archive, units, needle, hierarchy.getSubtypesOf(needle.getName()),
+                parent);
 
         if (log.isLoggable(Level.FINE)) {
             log.fine("Found " + needleImpls + " defined in the archive " + archive.getName() + " matching needle "
@@ -109,6 +142,36 @@ public class ArchiveUtil {
         return needleImpls;
     }
 
+    /**
+     * Gets class file information of all classes from the archive which implement interface or are the subclass of
+     * given needle. No class is defined by a class loader, type hierarchy is determined from class files. Classes outside
+     * of the archive are resolved using the thread context class loader.
+     *
+     * @param archive Archive to be searched
+     * @param needleName Fully qualified name of superclass of searched objects
+     * @return Unique collection of class file information in the archive
+     */
+    public static final Collection<ClassFileInfo> getDefinedClassInfosOf(Archive<?> archive, String needleName) {
+
+        long beforeScanning = System.currentTimeMillis();
+
+        List<ScanUnit> units = getScanUnits(archive);
+        ClassHierarchy hierarchy = getClassHierarchy(archive, units, Thread.currentThread().getContextClassLoader());
+
+        Collection<ClassFileInfo> needleImpls = new ArrayList<ClassFileInfo>();
+        for (String name : hierarchy.getSubtypesOf(needleName)) {
+            needleImpls.add(hierarchy.getClassFileInfo(name));
+        }
+
+        if (log.isLoggable(Level.FINE)) {
+            log.fine("Found " + needleImpls + " defined in the archive " + archive.getName() + " matching needle "
+                    + needleName);
+            log.fine("Scanning class files took " + (System.currentTimeMillis() - beforeScanning) + "ms");
+        }
+
+        return needleImpls;
+    }
+
     /**
      * Gets all fully qualified names of classes in the archive
      *
@@ -118,7 +181,8 @@ public class ArchiveUtil {
     public static final Collection<String> getDefinedClasses(Archive<?> archive) {
 
         Collection<String> classNames = new LinkedHashSet<String>();
-        getDefinedClasses(classNames, null, archive, null);
+        getDefinedClasses(classNames, null, archive, getScanUnits(archive), null, null,
+                Thread.currentThread().getContextClassLoader());
 
         if (log.isLoggable(Level.FINE)) {
             log.fine("Found " + classNames + " defined in the archive " + archive.getName());
@@ -127,36 +191,240 @@ public class ArchiveUtil {
         return classNames;
     }
 
-    // recursive descent
+    /**
+     * Gets all files stored in the archive, keyed by their path relative to the root of the archive. Directories are
+     * omitted and nested archives are not exploded.
+     *
+     * @param archive Archive to be exploded
+     * @return Ordered map of relative paths and their content
+     */
+    public static final Map<String, Asset> getExplodedContent(Archive<?> archive) {
+
+        Map<String, Asset> content = new LinkedHashMap<String, Asset>();
+        for (Entry<ArchivePath, Node> node : archive.getContent().entrySet()) {
+            Asset asset = node.getValue().getAsset();
+            // directories do not have any content
+            if (asset == null) {
+                continue;
+            }
+            content.put(asRelativePath(node.getKey()), asset);
+        }
+
+        if (log.isLoggable(Level.FINE)) {
+            log.fine("Found " + content.size() + " files in the archive " + archive.getName());
+        }
+
+        return content;
+    }
+
+    /**
+     * Converts an archive path to a path relative to the root of the archive
+     *
+     * @param path the archive path
+     * @return Path without leading slash
+     */
+    public static final String asRelativePath(ArchivePath path) {
+        String name = path.get();
+        return name.startsWith("/") ? name.substring(1) : name;
+    }
+
+    /**
+     * Computes a digest of the archive name and of paths and content of all files stored in the archive, including
+     * content of nested archives. Archives with the same digest are considered to be identical.
+     *
+     * @param archive Archive to be digested
+     * @return Hexadecimal SHA-1 digest of the archive
+     */
+    public static final String getContentDigest(Archive<?> archive) {
+
+        long beforeDigest = System.currentTimeMillis();
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Unable to compute a digest of the archive " + archive.getName(), e);
+        }
+
+        updateDigest(digest, archive.getName());
+        updateDigest(digest, archive, new byte[8192]);
+
+        String hash = HexUtils.toHexString(digest.digest());
+
+        if (log.isLoggable(Level.FINE)) {
+            log.fine("Computing digest of the archive " + archive.getName() + " took "
+                    + (System.currentTimeMillis() - beforeDigest) + "ms");
+        }
+
+        return hash;
+    }
+
+    // content map of an archive is not ordered, paths are sorted to get a stable digest
+    private static void updateDigest(MessageDigest digest, Archive<?> archive, byte[] buffer) {
+
+        Map<String, Asset> content = new TreeMap<String, Asset>(getExplodedContent(archive));
+        for (Entry<String, Asset> entry : content.entrySet()) {
+            updateDigest(digest, entry.getKey());
+
+            Asset asset = entry.getValue();
+            if (asset instanceof ArchiveAsset) {
+                updateDigest(digest, ((ArchiveAsset) asset).getArchive(), buffer);
+                continue;
+            }
+
+            InputStream is = null;
+            try {
+                is = asset.openStream();
+                int read;
+                while ((read = is.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to read " + entry.getKey() + " from the archive "
+                        + archive.getName(), e);
+            } finally {
+                IOUtils.closeQuietly(is);
+            }
+        }
+    }
+
+    // length prefix separates a name from the content which follows
+    private static void updateDigest(MessageDigest digest, String value) {
+        try {
+            byte[] bytes = value.getBytes("UTF-8");
+            digest.update((byte) (bytes.length >>> 24));
+            digest.update((byte) (bytes.length >>> 16));
+            digest.update((byte) (bytes.length >>> 8));
+            digest.update((byte) bytes.length);
+            digest.update(bytes);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException("Unable to compute a digest of " + value, e);
+        }
+    }
+
+    // scans units in parallel, results are merged in the order of units
     private static final <T> void getDefinedClasses(Collection<String> classNames, Collection<Class<T>> needleImpls,
-            Archive<?> archive, Class<T> needle) {
+            Archive<?> archive, List<ScanUnit> units, Class<T> needle, Set<String> candidates, ClassLoader parent) {
+
+        List<ScanTask<T>> tasks = new ArrayList<ScanTask<T>>(units.size());
+        for (ScanUnit unit : units) {
+            tasks.add(new ScanTask<T>(unit, needle, candidates, parent));
+        }
+
+        for (ScanResult<T> result : invokeInOrder(tasks, archive)) {
+            result.mergeTo(classNames, needleImpls);
+        }
+    }
+
+    // reads class files of all units in parallel, classes found earlier take precedence
+    private static ClassHierarchy getClassHierarchy(Archive<?> archive, List<ScanUnit> units, ClassLoader parent) {
+
+        List<ParseTask> tasks = new ArrayList<ParseTask>(units.size());
+        for (ScanUnit unit : units) {
+            tasks.add(new ParseTask(unit));
+        }
+
+        ClassHierarchy hierarchy = new ClassHierarchy(parent);
+        for (List<ClassFileInfo> infos : invokeInOrder(tasks, archive)) {
+            for (ClassFileInfo info : infos) {
+                hierarchy.add(info);
+            }
+        }
+        return hierarchy;
+    }
+
+    // runs tasks using the scan executor and returns their results in the order of tasks
+    private static <R> List<R> invokeInOrder(List<? extends Callable<R>> tasks, Archive<?> archive) {
+
+        List<R> results = new ArrayList<R>(tasks.size());
+
+        // not worth passing to another thread
+        if (tasks.size() < 2) {
+            for (Callable<R> task : tasks) {
+                try {
+                    results.add(task.call());
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IllegalStateException("Unable to scan archive " + archive.getName(), e);
+                }
+            }
+            return results;
+        }
+
+        List<Future<R>> futures = new ArrayList<Future<R>>(tasks.size());
+        for (Callable<R> task : tasks) {
+            futures.add(getScanExecutor().submit(task));
+        }
+
+        boolean interrupted = false;
+        try {
+            for (Future<R> future : futures) {
+                while (true) {
+                    try {
+                        results.add(future.get());
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    } catch (ExecutionException e) {
+                        if (e.getCause() instanceof RuntimeException) {
+                            throw (RuntimeException) e.getCause();
+                        }
+                        if (e.getCause() instanceof Error) {
+                            throw (Error) e.getCause();
+                        }
+                        throw new IllegalStateException("Unable to scan archive " + archive.getName(), e.getCause());
+                    }
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return results;
+    }
+
+    private static List<ScanUnit> getScanUnits(Archive<?> archive) {
+        List<ScanUnit> units = new ArrayList<ScanUnit>();
+        collectScanUnits(units, archive);
+        return units;
+    }
+
+    // recursive descent, nested archives are only collected here, so scanning never waits for another task
+    private static void collectScanUnits(List<ScanUnit> units, Archive<?> archive) {
 
         if (isEarArchive(archive)) {
             for (JavaArchive jar : getScannableNestedArchives(archive, JavaArchive.class, AssetUtil.JAR_FILTER)) {
-                getDefinedClasses(classNames, needleImpls, jar, needle);
+                collectScanUnits(units, jar);
             }
             for (WebArchive war : getScannableNestedArchives(archive, WebArchive.class, AssetUtil.WAR_FILTER)) {
-                getDefinedClasses(classNames, needleImpls, war, needle);
+                collectScanUnits(units, war);
             }
         } else if (isWarArchive(archive)) {
-
-            ByteAssetClassLoader cl = new ByteAssetClassLoader(archive, ArchiveType.WAR);
-
-            for (Entry<ArchivePath, Node> node : archive.getContent(AssetUtil.CLASS_FILTER).entrySet()) {
-                getDefinedClasses(classNames, needleImpls, ArchiveType.WAR, node.getKey(), node.getValue(), needle, cl);
-            }
+            units.add(new ScanUnit(archive, ArchiveType.WAR));
             for (JavaArchive jar : getScannableNestedArchives(archive, JavaArchive.class, AssetUtil.JAR_FILTER)) {
-                getDefinedClasses(classNames, needleImpls, jar, needle);
+                collectScanUnits(units, jar);
             }
         } else if (isJarArchive(archive)) {
+            units.add(new ScanUnit(archive, ArchiveType.JAR));
+        }
+    }
 
-            ByteAssetClassLoader cl = new ByteAssetClassLoader(archive, ArchiveType.JAR);
+    private static synchronized ExecutorService getScanExecutor() {
+        if (scanExecutor == null) {
+            scanExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+                private final AtomicInteger counter = new AtomicInteger();
 
-            for (Entry<ArchivePath, Node> node : archive.getContent(AssetUtil.CLASS_FILTER).entrySet()) {
-                getDefinedClasses(classNames, needleImpls, ArchiveType.JAR, node.getKey(), node.getValue(), needle, cl);
-            }
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "arquillian-openshift-scanner-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
         }
-
+        return scanExecutor;
     }
 
     /**
@@ -165,7 +433,7 @@ public class ArchiveUtil {
      */
     private static <X extends Archive<X>> Collection<X> getScannableNestedArchives(Archive<?> archive, Class<X> type,
             Filter<ArchivePath> filter) {
-        Collection<X> nestedArchives = new HashSet<X>();
+        Collection<X> nestedArchives = new LinkedHashSet<X>();
         for (Map.Entry<ArchivePath, Node> entry : archive.getContent(filter).entrySet()) {
             try {
                 X nestedArchive = archive.getAsType(type, entry.getKey());
@@ -180,7 +448,7 @@ public class ArchiveUtil {
     // worker method
     @SuppressWarnings("unchecked")
     private static final <T> void getDefinedClasses(Collection<String> classNames, Collection<Class<T>> needleImpls,
-            ArchiveType type, ArchivePath key, Node value, Class<T> needle, ClassLoader classLoader) {
+            ArchiveType type, ArchivePath key, Node value, Class<T> needle, Set<String> candidates, ClassLoader classLoader) {
 
         String name = type.asClassName(key);
 
@@ -192,6 +460,10 @@ public class ArchiveUtil {
         if (needle == null) {
             classNames.add(name);
         }
+        // class file does not declare needle among its supertypes, no need to load it
+        else if (candidates != null && !candidates.contains(name)) {
+            return;
+        }
         // load classes and check their type
         else {
             // load class
@@ -214,4 +486,79 @@ public class ArchiveUtil {
         }
 
     }
+
+    // classes directly stored in a single archive
+    private static class ScanUnit {
+        final Archive<?> archive;
+        final ArchiveType type;
+
+        ScanUnit(Archive<?> archive, ArchiveType type) {
+            this.archive = archive;
+            this.type = type;
+        }
+    }
+
+    private static class ScanResult<T> {
+        final Collection<String> classNames = new LinkedHashSet<String>();
+        final Collection<Class<T>> needleImpls = new LinkedHashSet<Class<T>>();
+
+        void mergeTo(Collection<String> classNames, Collection<Class<T>> needleImpls) {
+            classNames.addAll(this.classNames);
+            if (needleImpls != null) {
+                needleImpls.addAll(this.needleImpls);
+            }
+        }
+    }
+
+    private static class ScanTask<T> implements Callable<ScanResult<T>> {
+        private final ScanUnit unit;
+        private final Class<T> needle;
+        private final Set<String> candidates;
+        private final ClassLoader parent;
+
+        ScanTask(ScanUnit unit, Class<T> needle, Set<String> candidates, ClassLoader parent) {
+            this.unit = unit;
+            this.needle = needle;
+            this.candidates = candidates;
+            this.parent = parent;
+        }
+
+        @Override
+        public ScanResult<T> call() {
+            ScanResult<T> result = new ScanResult<T>();
+            ByteAssetClassLoader cl = new ByteAssetClassLoader(unit.archive, unit.type, parent);
+
+            for (Entry<ArchivePath, Node> node : unit.archive.getContent(AssetUtil.CLASS_FILTER).entrySet()) {
+                getDefinedClasses(result.classNames, result.needleImpls, unit.type, node.getKey(), node.getValue(), needle,
+                        candidates, cl);
+            }
+            return result;
+        }
+    }
+
+    private static class ParseTask implements Callable<List<ClassFileInfo>> {
+        private final ScanUnit unit;
+
+        ParseTask(ScanUnit unit) {
+            this.unit = unit;
+        }
+
+        @Override
+        public List<ClassFileInfo> call() {
+            List<ClassFileInfo> infos = new ArrayList<ClassFileInfo>();
+            for (Entry<ArchivePath, Node> node : unit.archive.getContent(AssetUtil.CLASS_FILTER).entrySet()) {
+                InputStream is = null;
+                try {
+                    is = node.getValue().getAsset().openStream();
+                    infos.add(ClassFileInfo.parse(is));
+                } catch (IOException e) {
+                    log.warning("Unable to read class file " + node.getKey().get() + " in archive "
+                            + unit.archive.getName() + ": " + e.getMessage());
+                } finally {
+                    IOUtils.closeQuietly(is);
+                }
+            }
+            return infos;
+        }
+    }
 }
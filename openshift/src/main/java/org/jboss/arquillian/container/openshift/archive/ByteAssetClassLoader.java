@@ -45,7 +45,18 @@ class ByteAssetClassLoader extends ClassLoader {
      */
     ByteAssetClassLoader(Archive<?> archive, ArchiveType type) {
         // set tctcl
-        super(Thread.currentThread().getContextClassLoader());
+        this(archive, type, Thread.currentThread().getContextClassLoader());
+    }
+
+    /**
+     * Constructs a class loader with an archive as a pool and an explicit parent
+     *
+     * @param archive the archive
+     * @param type the type of archive
+     * @param parent the parent class loader
+     */
+    ByteAssetClassLoader(Archive<?> archive, ArchiveType type, ClassLoader parent) {
+        super(parent);
         this.archive = archive;
         this.type = type;
     }
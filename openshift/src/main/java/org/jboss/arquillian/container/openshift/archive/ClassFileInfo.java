@@ -0,0 +1,344 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.openshift.archive;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Information about a class read directly from its class file, without defining the class by a class loader.
+ *
+ * <p>
+ * Only the constant pool, superclass, implemented interfaces and string values of runtime visible class annotations are
+ * read, everything else in the class file is skipped.
+ * </p>
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class ClassFileInfo {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+
+    private static final String INNER_CLASSES = "InnerClasses";
+
+    private final String name;
+
+    private final String simpleName;
+
+    private final String superName;
+
+    private final List<String> interfaceNames;
+
+    private final Map<String, Map<String, String>> annotations;
+
+    private ClassFileInfo(String name, String simpleName, String superName, List<String> interfaceNames,
+            Map<String, Map<String, String>> annotations) {
+        this.name = name;
+        this.simpleName = simpleName;
+        this.superName = superName;
+        this.interfaceNames = interfaceNames;
+        this.annotations = annotations;
+    }
+
+    /**
+     * Reads class file information from a stream. The stream is not closed.
+     *
+     * @param is the stream with class file content
+     * @return Class file information
+     * @throws IOException if the stream does not contain a valid class file
+     */
+    public static ClassFileInfo parse(InputStream is) throws IOException {
+        try {
+            return read(new DataInputStream(new BufferedInputStream(is)));
+        } catch (RuntimeException e) {
+            // malformed indexes in the constant pool
+            IOException ioe = new IOException("Malformed class file: " + e.getMessage());
+            ioe.initCause(e);
+            throw ioe;
+        }
+    }
+
+    /**
+     * @return the fully qualified class name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the simple name of the class, as returned by {@link Class#getSimpleName()}, i.e. an empty string for
+     *         anonymous classes
+     */
+    public String getSimpleName() {
+        return simpleName;
+    }
+
+    /**
+     * @return the fully qualified name of the superclass or {@code null} for {@link Object}
+     */
+    public String getSuperName() {
+        return superName;
+    }
+
+    /**
+     * @return the fully qualified names of directly implemented interfaces
+     */
+    public List<String> getInterfaceNames() {
+        return interfaceNames;
+    }
+
+    /**
+     * Checks whether the class is annotated by a runtime visible annotation
+     *
+     * @param annotationName the fully qualified name of the annotation
+     * @return {@code true} if the annotation is present, {@code false} otherwise
+     */
+    public boolean isAnnotationPresent(String annotationName) {
+        return annotations.containsKey(annotationName);
+    }
+
+    /**
+     * Gets a string value of an annotation element. Only values explicitly stored in the class file are available,
+     * default values are not.
+     *
+     * @param annotationName the fully qualified name of the annotation
+     * @param elementName the name of the annotation element
+     * @return the value or {@code null} if the annotation or a string value of the element is not present
+     */
+    public String getAnnotationValue(String annotationName, String elementName) {
+        Map<String, String> values = annotations.get(annotationName);
+        return values == null ? null : values.get(elementName);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private static ClassFileInfo read(DataInputStream in) throws IOException {
+
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a class file, magic number does not match");
+        }
+        // minor and major version
+        skipFully(in, 4);
+
+        // constant pool, only UTF8 and class entries are kept
+        int count = in.readUnsignedShort();
+        String[] utf8 = new String[count];
+        int[] classes = new int[count];
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1: // Utf8
+                    utf8[i] = in.readUTF();
+                    break;
+                case 7: // Class
+                    classes[i] = in.readUnsignedShort();
+                    break;
+                case 8: // String
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    skipFully(in, 2);
+                    break;
+                case 15: // MethodHandle
+                    skipFully(in, 3);
+                    break;
+                case 3: // Integer
+                case 4: // Float
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    skipFully(in, 4);
+                    break;
+                case 5: // Long
+                case 6: // Double
+                    skipFully(in, 8);
+                    // takes two entries
+                    i++;
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag);
+            }
+        }
+
+        // access flags
+        skipFully(in, 2);
+
+        String name = toClassName(utf8[classes[in.readUnsignedShort()]]);
+        int superIndex = in.readUnsignedShort();
+        String superName = superIndex == 0 ? null : toClassName(utf8[classes[superIndex]]);
+
+        int interfacesCount = in.readUnsignedShort();
+        List<String> interfaceNames = new ArrayList<String>(interfacesCount);
+        for (int i = 0; i < interfacesCount; i++) {
+            interfaceNames.add(toClassName(utf8[classes[in.readUnsignedShort()]]));
+        }
+
+        // fields and methods
+        skipMembers(in);
+        skipMembers(in);
+
+        // a top level class is not listed among inner classes, its name can contain '$' as well
+        String simpleName = name.substring(name.lastIndexOf('.') + 1);
+        Map<String, Map<String, String>> annotations = Collections.emptyMap();
+        int attributesCount = in.readUnsignedShort();
+        for (int i = 0; i < attributesCount; i++) {
+            String attributeName = utf8[in.readUnsignedShort()];
+            int length = in.readInt();
+            if (RUNTIME_VISIBLE_ANNOTATIONS.equals(attributeName)) {
+                annotations = readAnnotations(in, utf8);
+            } else if (INNER_CLASSES.equals(attributeName)) {
+                simpleName = readSimpleName(in, utf8, classes, name, simpleName);
+            } else {
+                skipFully(in, length);
+            }
+        }
+
+        return new ClassFileInfo(name, simpleName, superName, Collections.unmodifiableList(interfaceNames),
+                annotations);
+    }
+
+    // inner class entry of the class itself holds its simple name, which is missing for anonymous classes
+    private static String readSimpleName(DataInputStream in, String[] utf8, int[] classes, String name,
+            String defaultName) throws IOException {
+        String simpleName = defaultName;
+        int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            int innerClassIndex = in.readUnsignedShort();
+            // outer class
+            skipFully(in, 2);
+            int innerNameIndex = in.readUnsignedShort();
+            // access flags
+            skipFully(in, 2);
+            if (name.equals(toClassName(utf8[classes[innerClassIndex]]))) {
+                simpleName = innerNameIndex == 0 ? "" : utf8[innerNameIndex];
+            }
+        }
+        return simpleName;
+    }
+
+    private static Map<String, Map<String, String>> readAnnotations(DataInputStream in, String[] utf8) throws IOException {
+        Map<String, Map<String, String>> annotations = new HashMap<String, Map<String, String>>();
+        int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            String type = toClassName(descriptorToInternalName(utf8[in.readUnsignedShort()]));
+            annotations.put(type, readElementValuePairs(in, utf8));
+        }
+        return annotations;
+    }
+
+    private static Map<String, String> readElementValuePairs(DataInputStream in, String[] utf8) throws IOException {
+        Map<String, String> values = new HashMap<String, String>();
+        int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            String elementName = utf8[in.readUnsignedShort()];
+            String value = readElementValue(in, utf8);
+            if (value != null) {
+                values.put(elementName, value);
+            }
+        }
+        return values;
+    }
+
+    // returns value of string elements, other elements are skipped
+    private static String readElementValue(DataInputStream in, String[] utf8) throws IOException {
+        int tag = in.readUnsignedByte();
+        switch (tag) {
+            case 's':
+                return utf8[in.readUnsignedShort()];
+            case 'B':
+            case 'C':
+            case 'D':
+            case 'F':
+            case 'I':
+            case 'J':
+            case 'S':
+            case 'Z':
+            case 'c':
+                skipFully(in, 2);
+                return null;
+            case 'e':
+                skipFully(in, 4);
+                return null;
+            case '@':
+                // type of nested annotation
+                skipFully(in, 2);
+                readElementValuePairs(in, utf8);
+                return null;
+            case '[':
+                int count = in.readUnsignedShort();
+                for (int i = 0; i < count; i++) {
+                    readElementValue(in, utf8);
+                }
+                return null;
+            default:
+                throw new IOException("Unknown annotation element value tag " + (char) tag);
+        }
+    }
+
+    private static void skipMembers(DataInputStream in) throws IOException {
+        int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            // access flags, name and descriptor
+            skipFully(in, 6);
+            int attributesCount = in.readUnsignedShort();
+            for (int j = 0; j < attributesCount; j++) {
+                skipFully(in, 2);
+                skipFully(in, in.readInt());
+            }
+        }
+    }
+
+    private static void skipFully(DataInputStream in, int length) throws IOException {
+        int remaining = length;
+        while (remaining > 0) {
+            int skipped = in.skipBytes(remaining);
+            if (skipped <= 0) {
+                // skipBytes does not distinguish end of stream
+                in.readByte();
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+    }
+
+    private static String descriptorToInternalName(String descriptor) {
+        if (descriptor.startsWith("L") && descriptor.endsWith(";")) {
+            return descriptor.substring(1, descriptor.length() - 1);
+        }
+        return descriptor;
+    }
+
+    private static String toClassName(String internalName) {
+        return internalName.replace('/', '.');
+    }
+}
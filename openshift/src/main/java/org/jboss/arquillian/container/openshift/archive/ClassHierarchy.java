@@ -0,0 +1,138 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.openshift.archive;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Type hierarchy of classes in an archive built from class files. Supertypes which are not part of the archive are
+ * resolved using a class loader, but only if they are already loadable without the archive.
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+class ClassHierarchy {
+    private static final Logger log = Logger.getLogger(ClassHierarchy.class.getName());
+
+    private final Map<String, ClassFileInfo> classes = new LinkedHashMap<String, ClassFileInfo>();
+
+    private final ClassLoader classLoader;
+
+    /**
+     * Creates an empty hierarchy
+     *
+     * @param classLoader class loader used to resolve classes outside of the archive
+     */
+    ClassHierarchy(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * Adds a class to the hierarchy. If a class of the same name was already added, it is kept.
+     *
+     * @param info the class file information
+     */
+    void add(ClassFileInfo info) {
+        if (!classes.containsKey(info.getName())) {
+            classes.put(info.getName(), info);
+        }
+    }
+
+    /**
+     * @param name the fully qualified class name
+     * @return the class file information or {@code null} if the class is not part of the hierarchy
+     */
+    ClassFileInfo getClassFileInfo(String name) {
+        return classes.get(name);
+    }
+
+    /**
+     * Gets names of all classes in the hierarchy which implement interface or are the subclass of given needle
+     *
+     * @param needleName the fully qualified name of the needle
+     * @return Names of classes in the order they were added
+     */
+    Set<String> getSubtypesOf(String needleName) {
+
+        Class<?> needle = load(needleName);
+        Map<String, Boolean> resolved = new HashMap<String, Boolean>();
+
+        Set<String> subtypes = new LinkedHashSet<String>();
+        for (String name : classes.keySet()) {
+            if (isSubtypeOf(name, needleName, needle, resolved)) {
+                subtypes.add(name);
+            }
+        }
+        return subtypes;
+    }
+
+    private boolean isSubtypeOf(String name, String needleName, Class<?> needle, Map<String, Boolean> resolved) {
+
+        if (name == null) {
+            return false;
+        }
+        if (needleName.equals(name)) {
+            return true;
+        }
+
+        Boolean result = resolved.get(name);
+        if (result != null) {
+            return result;
+        }
+        // guard against cycles in malformed hierarchies
+        resolved.put(name, Boolean.FALSE);
+
+        boolean subtype = false;
+        ClassFileInfo info = classes.get(name);
+        if (info != null) {
+            subtype = isSubtypeOf(info.getSuperName(), needleName, needle, resolved);
+            for (String interfaceName : info.getInterfaceNames()) {
+                if (subtype) {
+                    break;
+                }
+                subtype = isSubtypeOf(interfaceName, needleName, needle, resolved);
+            }
+        } else if (needle != null) {
+            Class<?> clazz = load(name);
+            subtype = clazz != null && needle.isAssignableFrom(clazz);
+        }
+
+        resolved.put(name, subtype);
+        return subtype;
+    }
+
+    private Class<?> load(String name) {
+        try {
+            return Class.forName(name, false, classLoader);
+        } catch (ClassNotFoundException e) {
+            if (log.isLoggable(Level.FINER)) {
+                log.finer("Class " + name + " is not available outside of the archive");
+            }
+        } catch (LinkageError e) {
+            if (log.isLoggable(Level.FINER)) {
+                log.finer("Class " + name + " is not available outside of the archive: " + e.getMessage());
+            }
+        }
+        return null;
+    }
+}
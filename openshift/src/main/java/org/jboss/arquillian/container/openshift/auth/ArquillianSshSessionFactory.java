@@ -18,20 +18,49 @@
 package org.jboss.arquillian.container.openshift.auth;
 
 import java.io.File;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.eclipse.jgit.transport.JschConfigSessionFactory;
 import org.eclipse.jgit.transport.OpenSshConfig.Host;
+import org.eclipse.jgit.transport.RemoteSession;
 import org.eclipse.jgit.util.FS;
 import org.jboss.arquillian.container.openshift.OpenShiftContainerConfiguration;
+import org.jboss.arquillian.container.openshift.util.HexUtils;
 
 import com.jcraft.jsch.JSch;
 import com.jcraft.jsch.JSchException;
 import com.jcraft.jsch.Session;
 
+/**
+ * Creates SSH sessions for Git transport. A session to a host is kept open and reused by all subsequent transport
+ * operations, until the last container which acquired sessions by {@link #acquireSessions()} releases them by
+ * {@link #releaseSessions()}.
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
 public class ArquillianSshSessionFactory extends JschConfigSessionFactory {
     private static final Logger log = Logger.getLogger(ArquillianSshSessionFactory.class.getName());
 
+    // keeps idle sessions alive and detects broken ones
+    private static final int KEEP_ALIVE_INTERVAL_MILLIS = 30000;
+
+    // shared by all factories, as the factory is replaced with each repository
+    private static final Map<String, Session> sessions = new HashMap<String, Session>();
+
+    // containers running in the JVM, any of them might use any session
+    private static int sessionUsers;
+
+    // decrypted identities and parsed known hosts, keyed by files they were read from, their modification times and a
+    // digest of the passphrase, so the passphrase itself is not kept
+    private static final Map<String, JSch> configuredJSchs = new HashMap<String, JSch>();
+
     private JSch preconfiguredJSch;
 
     public ArquillianSshSessionFactory(OpenShiftContainerConfiguration configuration) {
@@ -53,6 +82,79 @@ public class ArquillianSshSessionFactory extends JschConfigSessionFactory {
         // No additional configuration required
     }
 
+    @Override
+    protected Session createSession(Host hc, String user, String host, int port, FS fs) throws JSchException {
+        String key = user + "@" + host + ":" + port;
+        synchronized (sessions) {
+            Session session = sessions.get(key);
+            if (session != null && isAlive(session)) {
+                if (log.isLoggable(Level.FINE)) {
+                    log.fine("Reusing SSH session to " + key);
+                }
+                return session;
+            }
+
+            // connection was lost, a new one is opened instead
+            if (session != null) {
+                log.info("SSH session to " + key + " was lost, reconnecting");
+                session.disconnect();
+            }
+
+            session = super.createSession(hc, user, host, port, fs);
+            session.setServerAliveInterval(KEEP_ALIVE_INTERVAL_MILLIS);
+            // a session left open must not prevent JVM from exiting
+            session.setDaemonThread(true);
+            sessions.put(key, session);
+            return session;
+        }
+    }
+
+    @Override
+    public void releaseSession(RemoteSession session) {
+        // session stays open for the next transport operation
+    }
+
+    /**
+     * Registers a container which uses SSH sessions, the sessions are kept open until it releases them
+     */
+    public static void acquireSessions() {
+        synchronized (sessions) {
+            sessionUsers++;
+        }
+    }
+
+    /**
+     * Unregisters a container which used SSH sessions. Sessions kept open for reuse are disconnected once no other
+     * container uses them.
+     */
+    public static void releaseSessions() {
+        synchronized (sessions) {
+            if (sessionUsers > 0) {
+                sessionUsers--;
+            }
+            if (sessionUsers > 0) {
+                return;
+            }
+            for (Session session : sessions.values()) {
+                session.disconnect();
+            }
+            sessions.clear();
+        }
+    }
+
+    // connection dropped on the network side is detected by sending a keep-alive message
+    private boolean isAlive(Session session) {
+        if (!session.isConnected()) {
+            return false;
+        }
+        try {
+            session.sendKeepAliveMsg();
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
     private void preconfigureJSch(OpenShiftContainerConfiguration configuration) {
 
         String identityFile = configuration.getIdentityFile();
@@ -66,43 +168,88 @@ public class ArquillianSshSessionFactory extends JschConfigSessionFactory {
                 "Arquillian Openshift Container configuration \"privateKeyFile\" must represent a path to a readable file, but it was "
                         + identityFile);
 
-        // either disable StrictHostChecking or load known machines from a standard location
-        JSch jsch = new JSch();
         if (disableStrictHostChecking) {
             log.warning("StrictHostKeyChecking was disabled. Your tests vulnerable to man-in-the-middle attacks.");
             JSch.setConfig("StrictHostKeyChecking", "no");
-        } else {
-            setKnownHosts(jsch);
         }
 
-        String prvkey = new File(identityFile).getAbsolutePath();
+        File prvkey = new File(identityFile).getAbsoluteFile();
+        File knownHosts = getKnownHosts();
 
+        // a modified file is read again
+        StringBuilder key = new StringBuilder().append(prvkey.getPath()).append('@').append(prvkey.lastModified())
+                .append('|').append(digest(passphrase));
+        if (!disableStrictHostChecking && knownHosts != null) {
+            key.append('|').append(knownHosts.getPath()).append('@').append(knownHosts.lastModified());
+        }
+
+        synchronized (configuredJSchs) {
+            JSch jsch = configuredJSchs.get(key.toString());
+            if (jsch == null) {
+                jsch = createJSch(disableStrictHostChecking ? null : knownHosts);
+                // configuration without the identity is not reused, the next factory tries to read it again
+                if (addIdentity(jsch, prvkey, passphrase)) {
+                    configuredJSchs.put(key.toString(), jsch);
+                }
+            } else if (log.isLoggable(Level.FINE)) {
+                log.fine("Reusing SSH configuration with private key from " + prvkey);
+            }
+
+            // we have configured a special JSch
+            this.preconfiguredJSch = jsch;
+        }
+    }
+
+    // either disable StrictHostChecking or load known machines from a standard location
+    private JSch createJSch(File knownHosts) {
+        JSch jsch = new JSch();
+        if (knownHosts != null) {
+            setKnownHosts(jsch, knownHosts);
+        }
+        return jsch;
+    }
+
+    private boolean addIdentity(JSch jsch, File prvkey, String passphrase) {
         try {
             if (passphrase == null || passphrase.length() == 0) {
-                jsch.addIdentity(prvkey);
+                jsch.addIdentity(prvkey.getPath());
             } else {
-                jsch.addIdentity(prvkey, passphrase);
+                jsch.addIdentity(prvkey.getPath(), passphrase);
             }
+            return true;
         } catch (JSchException e) {
             log.warning("Unable to add private key from " + prvkey
                     + ", to SSH configuration, ignoring Arquillian \"privateKeyFile\" property. Cause: \n" + e.getMessage());
+            return false;
         }
+    }
 
-        // we have configured a special JSch
-        this.preconfiguredJSch = jsch;
-
+    private String digest(String passphrase) {
+        if (passphrase == null) {
+            return "";
+        }
+        try {
+            return HexUtils.toHexString(MessageDigest.getInstance("SHA-1").digest(passphrase.getBytes("UTF-8")));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Unable to compute a digest of the passphrase", e);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException("Unable to compute a digest of the passphrase", e);
+        }
     }
 
-    private void setKnownHosts(final JSch sch) {
+    private File getKnownHosts() {
 
         String userHomeDir = SecurityActions.getProperty("user.home");
         File userHome = new File(userHomeDir + File.separator + ".ssh" + File.separator + "known_hosts");
         if (userHome.exists() == false || userHome.canRead() == false) {
-            return;
+            return null;
         }
+        return userHome.getAbsoluteFile();
+    }
 
+    private void setKnownHosts(final JSch sch, File knownHosts) {
         try {
-            sch.setKnownHosts(userHome.getAbsolutePath());
+            sch.setKnownHosts(knownHosts.getAbsolutePath());
         } catch (JSchException e) {
             log.warning("Unable to configure known hosts from SSH configuration, ignoring Arquillian \"privateKeyFile\" property."
                     + " If you want to force SSH to join to the host, set \"disableStrictHostChecking\" to true."
@@ -0,0 +1,122 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.openshift.metrics;
+
+/**
+ * A single measured phase of the container work. Measurements are fired as Arquillian events once the container
+ * operation finishes.
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class Measurement {
+
+    /**
+     * Value of bytes or objects which were not measured
+     */
+    public static final long UNKNOWN = -1;
+
+    private final String application;
+
+    private final Phase phase;
+
+    private final String subject;
+
+    private final long startTime;
+
+    private final long durationMillis;
+
+    private final long bytes;
+
+    private final long objects;
+
+    /**
+     * Creates a measurement
+     *
+     * @param application the application the phase was run against
+     * @param phase the phase
+     * @param subject the archive or the path the phase worked with, can be null
+     * @param startTime the time the phase started, in milliseconds since epoch
+     * @param durationMillis the duration of the phase
+     * @param bytes number of bytes processed or transferred, {@link #UNKNOWN} if not measured
+     * @param objects number of objects processed or transferred, {@link #UNKNOWN} if not measured
+     */
+    public Measurement(String application, Phase phase, String subject, long startTime, long durationMillis, long bytes,
+            long objects) {
+        this.application = application;
+        this.phase = phase;
+        this.subject = subject;
+        this.startTime = startTime;
+        this.durationMillis = durationMillis;
+        this.bytes = bytes;
+        this.objects = objects;
+    }
+
+    /**
+     * @return the application
+     */
+    public String getApplication() {
+        return application;
+    }
+
+    /**
+     * @return the phase
+     */
+    public Phase getPhase() {
+        return phase;
+    }
+
+    /**
+     * @return the subject, can be null
+     */
+    public String getSubject() {
+        return subject;
+    }
+
+    /**
+     * @return the start time in milliseconds since epoch
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * @return the duration in milliseconds
+     */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * @return the bytes, {@link #UNKNOWN} if not measured
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return the objects, {@link #UNKNOWN} if not measured
+     */
+    public long getObjects() {
+        return objects;
+    }
+
+    @Override
+    public String toString() {
+        return phase + " of " + (subject != null ? subject : application) + " took " + durationMillis + "ms";
+    }
+}
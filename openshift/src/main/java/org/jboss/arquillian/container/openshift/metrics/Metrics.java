@@ -0,0 +1,121 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.openshift.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects measurements of a single application. Phases can be measured from any thread, measurements are collected by
+ * the container afterwards.
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class Metrics {
+
+    private final String application;
+
+    private final boolean enabled;
+
+    private final List<Measurement> measurements = new ArrayList<Measurement>();
+
+    /**
+     * Creates metrics of the application
+     *
+     * @param application the application name
+     */
+    public Metrics(String application) {
+        this(application, true);
+    }
+
+    private Metrics(String application, boolean enabled) {
+        this.application = application;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Creates metrics which do not record anything
+     *
+     * @return the metrics
+     */
+    public static Metrics disabled() {
+        return new Metrics(null, false);
+    }
+
+    /**
+     * Starts measuring a phase
+     *
+     * @param phase the phase
+     * @param subject the archive or the path the phase works with, can be null
+     * @return the timer to be stopped when the phase finishes
+     */
+    public Timer start(Phase phase, String subject) {
+        return new Timer(phase, subject);
+    }
+
+    /**
+     * Takes all measurements recorded since the last call
+     *
+     * @return the measurements in order they were recorded
+     */
+    public synchronized List<Measurement> drain() {
+        List<Measurement> drained = new ArrayList<Measurement>(measurements);
+        measurements.clear();
+        return drained;
+    }
+
+    private synchronized void record(Measurement measurement) {
+        if (enabled) {
+            measurements.add(measurement);
+        }
+    }
+
+    /**
+     * Measures duration of a single phase
+     */
+    public class Timer {
+        private final Phase phase;
+
+        private final String subject;
+
+        private final long startTime = System.currentTimeMillis();
+
+        Timer(Phase phase, String subject) {
+            this.phase = phase;
+            this.subject = subject;
+        }
+
+        /**
+         * Records the phase with unknown bytes and objects
+         */
+        public void stop() {
+            stop(Measurement.UNKNOWN, Measurement.UNKNOWN);
+        }
+
+        /**
+         * Records the phase
+         *
+         * @param bytes number of bytes processed or transferred
+         * @param objects number of objects processed or transferred
+         */
+        public void stop(long bytes, long objects) {
+            record(new Measurement(application, phase, subject, startTime, System.currentTimeMillis() - startTime,
+                    bytes, objects));
+        }
+    }
+}
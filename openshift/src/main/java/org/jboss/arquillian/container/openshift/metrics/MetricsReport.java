@@ -0,0 +1,101 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.openshift.metrics;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collection;
+
+/**
+ * Writes measurements into a CSV file, one measurement per line
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class MetricsReport {
+
+    static final String HEADER = "application,phase,subject,startTime,durationMillis,bytes,objects";
+
+    private final File file;
+
+    /**
+     * Creates a report
+     *
+     * @param file the file the report is written to
+     */
+    public MetricsReport(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Writes measurements into the report. Existing report is overwritten.
+     *
+     * @param measurements the measurements
+     * @throws IOException if the report could not be written
+     */
+    public void write(Collection<Measurement> measurements) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (directory != null) {
+            directory.mkdirs();
+        }
+
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(HEADER);
+            writer.write('\n');
+            for (Measurement measurement : measurements) {
+                writer.write(escape(measurement.getApplication()));
+                writer.write(',');
+                writer.write(measurement.getPhase().name());
+                writer.write(',');
+                writer.write(escape(measurement.getSubject()));
+                writer.write(',');
+                writer.write(String.valueOf(measurement.getStartTime()));
+                writer.write(',');
+                writer.write(String.valueOf(measurement.getDurationMillis()));
+                writer.write(',');
+                writer.write(String.valueOf(measurement.getBytes()));
+                writer.write(',');
+                writer.write(String.valueOf(measurement.getObjects()));
+                writer.write('\n');
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * @return the file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    // values containing a separator or a quote are quoted
+    private String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') == -1 && value.indexOf('"') == -1 && value.indexOf('\n') == -1) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
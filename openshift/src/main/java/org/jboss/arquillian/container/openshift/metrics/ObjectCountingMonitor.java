@@ -0,0 +1,73 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.openshift.metrics;
+
+import org.eclipse.jgit.lib.ProgressMonitor;
+
+/**
+ * Progress monitor of a Git transport operation which remembers how many objects were transferred
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class ObjectCountingMonitor implements ProgressMonitor {
+
+    // tasks reported by JGit when objects are received or sent
+    private static final String RECEIVING = "Receiving objects";
+
+    private static final String WRITING = "Writing objects";
+
+    private long objects = Measurement.UNKNOWN;
+
+    @Override
+    public void start(int totalTasks) {
+    }
+
+    @Override
+    public void beginTask(String title, int totalWork) {
+        if (isTransfer(title)) {
+            objects = Math.max(objects, 0);
+            if (totalWork != UNKNOWN) {
+                objects += totalWork;
+            }
+        }
+    }
+
+    @Override
+    public void update(int completed) {
+    }
+
+    @Override
+    public void endTask() {
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return false;
+    }
+
+    /**
+     * @return number of objects received or sent, {@link Measurement#UNKNOWN} if no object was transferred
+     */
+    public long getObjects() {
+        return objects;
+    }
+
+    private boolean isTransfer(String title) {
+        return title != null && (title.startsWith(RECEIVING) || title.startsWith(WRITING));
+    }
+}
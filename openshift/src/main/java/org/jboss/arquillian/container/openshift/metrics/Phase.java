@@ -0,0 +1,58 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.openshift.metrics;
+
+/**
+ * A phase of the container work which is measured
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public enum Phase {
+    /**
+     * Clone of the remote repository or synchronization of a cached one, objects are those received
+     */
+    CLONE,
+    /**
+     * Export of an archive into ZIP format, bytes are the size of the archive, objects are its entries
+     */
+    EXPORT,
+    /**
+     * Update of the Git index or an in-memory tree, objects are changed paths
+     */
+    STAGE,
+    /**
+     * Creation of a commit from the staged changes
+     */
+    COMMIT,
+    /**
+     * Push to the remote repository, objects are those sent
+     */
+    PUSH,
+    /**
+     * Wait until pushed archives are deployed, objects are readiness probes sent
+     */
+    READINESS_WAIT,
+    /**
+     * Extraction of protocol metadata from an archive
+     */
+    METADATA_PARSE,
+    /**
+     * Removal of archives from the repository, objects are removed archives
+     */
+    UNDEPLOY
+}
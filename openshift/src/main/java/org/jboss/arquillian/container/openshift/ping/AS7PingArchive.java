@@ -17,6 +17,11 @@
  */
 package org.jboss.arquillian.container.openshift.ping;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.jboss.arquillian.container.openshift.archive.ArchiveExporter;
+import org.jboss.arquillian.container.openshift.util.HexUtils;
 import org.jboss.shrinkwrap.api.Archive;
 import org.jboss.shrinkwrap.api.ShrinkWrap;
 import org.jboss.shrinkwrap.api.asset.StringAsset;
@@ -32,9 +37,13 @@ public class AS7PingArchive
 {
    public static String ARCHIVE_NAME = "arq-verify-deployed.war";
 
+   // the archive never changes, it is built and exported only once
+   private static byte[] content;
+
    public static Archive<?> create() {
       return ShrinkWrap.create(WebArchive.class, ARCHIVE_NAME)
                .addPackage(AS7PingArchive.class.getPackage())
+               .addClass(HexUtils.class)
                .addAsResource(
                      new StringAsset(
                            "org.jboss.arquillian.container.openshift.ping.OpenShiftActivator"), 
@@ -44,4 +53,22 @@ public class AS7PingArchive
                         .append("Dependencies: org.jboss.as.controller,org.jboss.as.server").append('\n')
                         .toString()));
    }
+
+   /**
+    * Gets the archive exported in ZIP format. The archive is exported only once per JVM.
+    *
+    * @return the exported archive
+    */
+   public static synchronized byte[] getContent() {
+      if (content == null) {
+         ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+         try {
+            ArchiveExporter.exportTo(create(), bytes);
+         } catch (IOException e) {
+            throw new IllegalStateException("Unable to export " + ARCHIVE_NAME, e);
+         }
+         content = bytes.toByteArray();
+      }
+      return content;
+   }
 }
@@ -1,13 +1,30 @@
 package org.jboss.arquillian.container.openshift.ping;
 
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.CHILD_TYPE;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.CONTENT;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.DEPLOYMENT;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.HASH;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.INCLUDE_RUNTIME;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.NAME;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP_ADDR;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OUTCOME;
-import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.READ_RESOURCE_OPERATION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.PATH;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.READ_ATTRIBUTE_OPERATION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.READ_CHILDREN_RESOURCES_OPERATION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.RELATIVE_TO;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.RESULT;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SUBSYSTEM;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SUCCESS;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
 
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
@@ -15,6 +32,7 @@ import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.jboss.arquillian.container.openshift.util.HexUtils;
 import org.jboss.as.controller.ModelController;
 import org.jboss.as.controller.client.OperationMessageHandler;
 import org.jboss.dmr.ModelNode;
@@ -23,43 +41,302 @@ import org.jboss.dmr.ModelNode;
 public class DeploymentServlet extends HttpServlet {
     private static final long serialVersionUID = 1L;
 
+    // upper bound of time a request is held until the deployments appear
+    private static final long MAX_WAIT_MILLIS = 30000;
+
+    // checks are done in-process, so they can be frequent
+    private static final long CHECK_INTERVAL_MILLIS = 50;
+
+    // runtime attribute of a deployment, FAILED if any of its services did not start
+    private static final String STATUS = "status";
+
+    private static final String FAILED = "FAILED";
+
+    // marker written by the deployment scanner next to the archive, it contains the failure description
+    private static final String FAILED_MARKER_SUFFIX = ".failed";
+
+    private static final String[] PENDING_MARKER_SUFFIXES = { ".dodeploy", ".isdeploying" };
+
+    private static final int MAX_FAILURE_LENGTH = 64 * 1024;
+
+    // directories scanned for deployments, resolved once
+    private volatile List<File> deploymentDirectories;
+
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp)
             throws ServletException, IOException {
-        String deploymentName = req.getParameter("name");
-        if (deploymentName == null) {
+        String[] deploymentNames = req.getParameterValues("name");
+        if (deploymentNames == null || deploymentNames.length == 0) {
             returnFalse(resp);
+            return;
+        }
+
+        // content is replaced on redeploy, the old one must not be reported as deployed
+        String[] hashes = new String[deploymentNames.length];
+        for (int i = 0; i < deploymentNames.length; i++) {
+            hashes[i] = req.getParameter("hash." + deploymentNames[i]);
+        }
+        // single deployment might be checked by a plain hash parameter
+        if (deploymentNames.length == 1 && hashes[0] == null) {
+            hashes[0] = req.getParameter("hash");
         }
 
-        if (deploymentExists(deploymentName)) {
-            returnTrue(resp);
+        Properties document = new Properties();
+        if (awaitDeployments(deploymentNames, hashes, getWait(req), document)) {
+            returnStatus(resp, HttpServletResponse.SC_OK, document);
+        } else if (hasFailed(deploymentNames, document)) {
+            // waiting any longer would not help
+            returnStatus(resp, HttpServletResponse.SC_CONFLICT, document);
         } else {
-            returnFalse(resp);
+            returnStatus(resp, HttpServletResponse.SC_ACCEPTED, document);
         }
     }
 
     /**
-     * @param deploymentName
-     * @return
+     * Blocks until all deployments are deployed, any of them fails or the wait time elapses
+     *
+     * @param deploymentNames
+     * @param hashes expected SHA-1 of the deployment content, items can be null
+     * @param wait
+     * @param document the document filled with the latest state of deployments
+     * @return {@code true} if all deployments are deployed
+     */
+    private boolean awaitDeployments(String[] deploymentNames, String[] hashes, long wait, Properties document) {
+        long timeout = System.currentTimeMillis() + wait;
+        while (true) {
+            document.clear();
+            boolean deployed = true;
+            boolean failed = false;
+            ModelNode deployments = readDeployments();
+            for (int i = 0; i < deploymentNames.length; i++) {
+                DeploymentStatus status = getStatus(deployments, deploymentNames[i], hashes[i]);
+
+                // deployment rolled back by the scanner is not in the model at all
+                String failure = getFailure(deploymentNames[i]);
+                if (failure != null && status != DeploymentStatus.DEPLOYED) {
+                    status = DeploymentStatus.FAILED;
+                } else if (status == DeploymentStatus.FAILED) {
+                    failure = "Deployment " + deploymentNames[i] + " has failed or missing services";
+                }
+
+                status.store(document, deploymentNames[i], status == DeploymentStatus.FAILED ? failure : null);
+                deployed &= status == DeploymentStatus.DEPLOYED;
+                failed |= status == DeploymentStatus.FAILED;
+            }
+
+            if (deployed || failed) {
+                return deployed;
+            }
+            if (System.currentTimeMillis() + CHECK_INTERVAL_MILLIS > timeout) {
+                return false;
+            }
+            try {
+                Thread.sleep(CHECK_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    private boolean hasFailed(String[] deploymentNames, Properties document) {
+        for (String deploymentName : deploymentNames) {
+            if (DeploymentStatus.of(document, deploymentName) == DeploymentStatus.FAILED) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long getWait(HttpServletRequest req) {
+        String wait = req.getParameter("wait");
+        if (wait == null) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Math.min(MAX_WAIT_MILLIS, Long.parseLong(wait)));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Reads all deployments together with their runtime state by a single operation
+     *
+     * @return deployments keyed by their names, undefined if they could not be read
      */
-    private boolean deploymentExists(String deploymentName) {
+    private ModelNode readDeployments() {
 
         final ModelNode operation = new ModelNode();
-        operation.get(OP).set(READ_RESOURCE_OPERATION);
-        operation.get(OP_ADDR).set(new ModelNode().add(DEPLOYMENT, deploymentName));
+        operation.get(OP).set(READ_CHILDREN_RESOURCES_OPERATION);
+        operation.get(OP_ADDR).setEmptyList();
+        operation.get(CHILD_TYPE).set(DEPLOYMENT);
+        operation.get(INCLUDE_RUNTIME).set(true);
 
+        return execute(operation);
+    }
+
+    /**
+     * Reads the failure description from the marker left by the deployment scanner. Marker older than the archive, or
+     * than a marker of a deployment which is pending or in progress, belongs to its previous content and it is ignored.
+     *
+     * @param deploymentName
+     * @return the failure description or {@code null} if the deployment did not fail
+     */
+    private String getFailure(String deploymentName) {
+        for (File directory : getDeploymentDirectories()) {
+            File marker = new File(directory, deploymentName + FAILED_MARKER_SUFFIX);
+            if (!marker.isFile()) {
+                continue;
+            }
+            if (isStale(directory, deploymentName, marker.lastModified())) {
+                continue;
+            }
+            try {
+                String failure = read(marker).trim();
+                return failure.length() != 0 ? failure : "Deployment " + deploymentName + " failed";
+            } catch (IOException e) {
+                return "Deployment " + deploymentName + " failed, " + marker + " could not be read: " + e.getMessage();
+            }
+        }
+        return null;
+    }
+
+    private boolean isStale(File directory, String deploymentName, long failedAt) {
+        for (String suffix : PENDING_MARKER_SUFFIXES) {
+            File pending = new File(directory, deploymentName + suffix);
+            if (pending.isFile() && pending.lastModified() >= failedAt) {
+                return true;
+            }
+        }
+        File archive = new File(directory, deploymentName);
+        return archive.exists() && getLastModified(archive) > failedAt;
+    }
+
+    // directory of an exploded deployment keeps its time when files inside are rewritten
+    private long getLastModified(File file) {
+        long lastModified = file.lastModified();
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                lastModified = Math.max(lastModified, getLastModified(child));
+            }
+        }
+        return lastModified;
+    }
+
+    private List<File> getDeploymentDirectories() {
+        if (deploymentDirectories == null) {
+            deploymentDirectories = resolveDeploymentDirectories();
+        }
+        return deploymentDirectories;
+    }
+
+    // paths of scanners are relative to a named path in most cases
+    private List<File> resolveDeploymentDirectories() {
+        List<File> directories = new ArrayList<File>();
+
+        ModelNode operation = new ModelNode();
+        operation.get(OP).set(READ_CHILDREN_RESOURCES_OPERATION);
+        operation.get(OP_ADDR).set(new ModelNode().add(SUBSYSTEM, "deployment-scanner"));
+        operation.get(CHILD_TYPE).set("scanner");
+
+        ModelNode scanners = execute(operation);
+        if (scanners.isDefined()) {
+            for (String scanner : scanners.keys()) {
+                ModelNode definition = scanners.get(scanner);
+                if (!definition.hasDefined(PATH)) {
+                    continue;
+                }
+                String path = definition.get(PATH).asString();
+                if (definition.hasDefined(RELATIVE_TO)) {
+                    ModelNode relativeTo = new ModelNode();
+                    relativeTo.get(OP).set(READ_ATTRIBUTE_OPERATION);
+                    relativeTo.get(OP_ADDR).set(new ModelNode().add(PATH, definition.get(RELATIVE_TO).asString()));
+                    relativeTo.get(NAME).set(PATH);
+                    ModelNode base = execute(relativeTo);
+                    if (base.isDefined()) {
+                        directories.add(new File(base.asString(), path));
+                    }
+                } else {
+                    directories.add(new File(path));
+                }
+            }
+        }
+
+        String deployDir = System.getProperty("jboss.server.deploy.dir");
+        if (directories.isEmpty() && deployDir != null) {
+            directories.add(new File(deployDir));
+        }
+        return directories;
+    }
+
+    private ModelNode execute(ModelNode operation) {
         ModelNode result = OpenShiftService.controller.execute(
                 operation, 
                 OperationMessageHandler.logging,
                 ModelController.OperationTransactionControl.COMMIT, 
                 null);
 
-        return SUCCESS.equals(result.get(OUTCOME).asString());
+        if (!SUCCESS.equals(result.get(OUTCOME).asString())) {
+            return new ModelNode();
+        }
+        return result.get(RESULT);
+    }
+
+    private String read(File file) throws IOException {
+        InputStream is = new FileInputStream(file);
+        try {
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while (content.size() < MAX_FAILURE_LENGTH && (read = is.read(buffer)) != -1) {
+                content.write(buffer, 0, read);
+            }
+            return new String(content.toByteArray(), "UTF-8");
+        } finally {
+            is.close();
+        }
+    }
+
+    /**
+     * @param deployments
+     * @param deploymentName
+     * @param hash
+     * @return
+     */
+    private DeploymentStatus getStatus(ModelNode deployments, String deploymentName, String hash) {
+        if (!deployments.hasDefined(deploymentName)) {
+            return DeploymentStatus.PENDING;
+        }
+
+        ModelNode deployment = deployments.get(deploymentName);
+        if (hash != null && !hasContent(deployment, hash)) {
+            return DeploymentStatus.PENDING;
+        }
+        if (deployment.hasDefined(STATUS) && FAILED.equals(deployment.get(STATUS).asString())) {
+            return DeploymentStatus.FAILED;
+        }
+        return DeploymentStatus.DEPLOYED;
+    }
+
+    private boolean hasContent(ModelNode deployment, String hash) {
+        if (!deployment.hasDefined(CONTENT)) {
+            return false;
+        }
+        for (ModelNode item : deployment.get(CONTENT).asList()) {
+            if (item.hasDefined(HASH) && hash.equalsIgnoreCase(HexUtils.toHexString(item.get(HASH).asBytes()))) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    private void returnTrue(HttpServletResponse resp) {
+    private void returnStatus(HttpServletResponse resp, int status, Properties document) throws IOException {
         resp.setContentType("text/plain");
-        resp.setStatus(HttpServletResponse.SC_OK);
+        resp.setCharacterEncoding("ISO-8859-1");
+        resp.setStatus(status);
+        document.store(resp.getOutputStream(), null);
     }
 
     private void returnFalse(HttpServletResponse resp) {
@@ -0,0 +1,79 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.openshift.ping;
+
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * State of a deployment as reported by the ping servlet. The servlet answers with a properties document containing
+ * {@code <name>.status} and optionally {@code <name>.failure} entry for every requested deployment.
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public enum DeploymentStatus {
+    DEPLOYED, FAILED, PENDING;
+
+    public static final String STATUS_SUFFIX = ".status";
+
+    public static final String FAILURE_SUFFIX = ".failure";
+
+    /**
+     * Stores state of the deployment into the status document
+     *
+     * @param document the document
+     * @param deploymentName the name of the deployment
+     * @param failure the failure description, can be null
+     */
+    public void store(Properties document, String deploymentName, String failure) {
+        document.setProperty(deploymentName + STATUS_SUFFIX, name().toLowerCase(Locale.ENGLISH));
+        if (failure != null) {
+            document.setProperty(deploymentName + FAILURE_SUFFIX, failure);
+        }
+    }
+
+    /**
+     * Reads state of the deployment from the status document
+     *
+     * @param document the document
+     * @param deploymentName the name of the deployment
+     * @return the state, {@link #PENDING} if the document does not know the deployment
+     */
+    public static DeploymentStatus of(Properties document, String deploymentName) {
+        String status = document.getProperty(deploymentName + STATUS_SUFFIX);
+        if (status == null) {
+            return PENDING;
+        }
+        try {
+            return valueOf(status.toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+            return PENDING;
+        }
+    }
+
+    /**
+     * Reads failure description of the deployment from the status document
+     *
+     * @param document the document
+     * @param deploymentName the name of the deployment
+     * @return the failure description or {@code null}
+     */
+    public static String getFailure(Properties document, String deploymentName) {
+        return document.getProperty(deploymentName + FAILURE_SUFFIX);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.openshift.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A persistent cache of cloned Git repositories on the local file system, keyed by the URI of the remote repository.
+ *
+ * <p>
+ * Every cached clone is guarded by a lock file, so a clone is never used by more than one container at a time, even if
+ * the containers run in different JVMs.
+ * </p>
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class CloneCache {
+
+    private static final String LOCK_SUFFIX = ".lock";
+
+    private final File cacheDirectory;
+
+    /**
+     * Creates a clone cache in given directory
+     *
+     * @param cacheDirectory the directory where clones are stored
+     */
+    public CloneCache(File cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    /**
+     * Gets directory of the clone of the remote repository
+     *
+     * @param remoteUri the URI of the remote repository
+     * @return the clone directory, which might not exist yet
+     */
+    public File getRepositoryDirectory(String remoteUri) {
+        return new File(cacheDirectory, asKey(remoteUri));
+    }
+
+    /**
+     * Locks the clone of the remote repository for exclusive use
+     *
+     * @param remoteUri the URI of the remote repository
+     * @return the lock or {@code null} if the clone is used by someone else
+     * @throws IOException if the lock file could not be created
+     */
+    public LockFile lock(String remoteUri) throws IOException {
+        return LockFile.tryAcquire(new File(cacheDirectory, asKey(remoteUri) + LOCK_SUFFIX));
+    }
+
+    /**
+     * @return the cacheDirectory
+     */
+    public File getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    // URI can contain characters which are not allowed in file names
+    private String asKey(String remoteUri) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            return HexUtils.toHexString(digest.digest(remoteUri.getBytes("UTF-8")));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Unable to compute a key for " + remoteUri, e);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException("Unable to compute a key for " + remoteUri, e);
+        }
+    }
+}
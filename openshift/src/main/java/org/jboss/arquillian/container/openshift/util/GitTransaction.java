@@ -0,0 +1,138 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.openshift.util;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jgit.lib.PersonIdent;
+
+/**
+ * Collects changes of the Git index and applies them together with a single commit.
+ *
+ * <p>
+ * The latest operation on a file pattern wins, so adding a pattern which was removed earlier in the same transaction
+ * cancels the removal and vice versa.
+ * </p>
+ *
+ * <p>
+ * Content of files can be given directly. In a repository with a working tree, such files are written there before they
+ * are staged. In a bare repository, content is stored as Git objects and the commit is created in memory.
+ * </p>
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class GitTransaction {
+
+    private final GitUtil git;
+
+    private final Set<String> additions = new LinkedHashSet<String>();
+
+    private final Set<String> updates = new LinkedHashSet<String>();
+
+    private final Set<String> removals = new LinkedHashSet<String>();
+
+    private final Map<String, byte[]> contents = new LinkedHashMap<String, byte[]>();
+
+    GitTransaction(GitUtil git) {
+        this.git = git;
+    }
+
+    /**
+     * Stages a file pattern to be added
+     *
+     * @param filePattern the file pattern
+     * @return Modified transaction
+     */
+    public GitTransaction add(String filePattern) {
+        removals.remove(filePattern);
+        contents.remove(filePattern);
+        additions.add(filePattern);
+        return this;
+    }
+
+    /**
+     * Stages a file with given content to be added
+     *
+     * @param path the path of the file
+     * @param content the content of the file
+     * @return Modified transaction
+     */
+    public GitTransaction add(String path, byte[] content) {
+        removals.remove(path);
+        additions.add(path);
+        contents.put(path, content);
+        return this;
+    }
+
+    /**
+     * Stages modifications and removals of already tracked files matching a file pattern
+     *
+     * @param filePattern the file pattern
+     * @return Modified transaction
+     */
+    public GitTransaction update(String filePattern) {
+        removals.remove(filePattern);
+        updates.add(filePattern);
+        return this;
+    }
+
+    /**
+     * Stages a file pattern to be removed
+     *
+     * @param filePattern the file pattern
+     * @return Modified transaction
+     */
+    public GitTransaction remove(String filePattern) {
+        additions.remove(filePattern);
+        updates.remove(filePattern);
+        contents.remove(filePattern);
+        removals.add(filePattern);
+        return this;
+    }
+
+    /**
+     * @return {@code true} if no change was staged
+     */
+    public boolean isEmpty() {
+        return additions.isEmpty() && updates.isEmpty() && removals.isEmpty();
+    }
+
+    /**
+     * Applies all staged changes to the index and commits them. Transaction is empty afterwards.
+     *
+     * @param identification The person identification
+     * @param message the commit message
+     */
+    public void commit(PersonIdent identification, String message) {
+        if (git.isBare()) {
+            // there is nothing to update without a working tree
+            git.commitInCore(additions, removals, contents, identification, message);
+        } else {
+            git.apply(additions, updates, removals, contents);
+            git.commit(identification, message);
+        }
+
+        additions.clear();
+        updates.clear();
+        removals.clear();
+        contents.clear();
+    }
+}
@@ -17,22 +17,30 @@
 package org.jboss.arquillian.container.openshift.util;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import org.eclipse.jgit.api.AddCommand;
 import org.eclipse.jgit.api.CommitCommand;
 import org.eclipse.jgit.api.CreateBranchCommand;
+import org.eclipse.jgit.api.FetchCommand;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.PushCommand;
-import org.eclipse.jgit.api.RmCommand;
+import org.eclipse.jgit.api.ResetCommand.ResetType;
 import org.eclipse.jgit.api.errors.ConcurrentRefUpdateException;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.api.errors.InvalidRefNameException;
 import org.eclipse.jgit.api.errors.InvalidRemoteException;
 import org.eclipse.jgit.api.errors.JGitInternalException;
-import org.eclipse.jgit.api.errors.NoFilepatternException;
 import org.eclipse.jgit.api.errors.NoHeadException;
 import org.eclipse.jgit.api.errors.NoMessageException;
 import org.eclipse.jgit.api.errors.RefAlreadyExistsException;
@@ -41,8 +49,33 @@ import org.eclipse.jgit.api.errors.TransportException;
 import org.eclipse.jgit.api.errors.UnmergedPathsException;
 import org.eclipse.jgit.api.errors.WrongRepositoryStateException;
 import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheBuilder;
+import org.eclipse.jgit.dircache.DirCacheEditor;
+import org.eclipse.jgit.dircache.DirCacheEditor.DeletePath;
+import org.eclipse.jgit.dircache.DirCacheEditor.PathEdit;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
 import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.RefUpdate.Result;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.transport.FetchResult;
+import org.eclipse.jgit.transport.PushResult;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.RemoteRefUpdate;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.util.FileUtils;
+import org.jboss.arquillian.container.openshift.metrics.Measurement;
+import org.jboss.arquillian.container.openshift.metrics.Metrics;
+import org.jboss.arquillian.container.openshift.metrics.ObjectCountingMonitor;
+import org.jboss.arquillian.container.openshift.metrics.Phase;
 
 /**
  * Provides a high level Git API
@@ -53,8 +86,17 @@ import org.eclipse.jgit.transport.CredentialsProvider;
 public class GitUtil {
 
     private static final Logger log = Logger.getLogger(GitUtil.class.getName());
+    private static final Collection<String> NO_PATTERNS = Collections.emptySet();
+
+    private static final Map<String, byte[]> NO_CONTENTS = Collections.emptyMap();
+
     private Git git;
 
+    private Metrics metrics = Metrics.disabled();
+
+    // commit the remote branch points to, as of the last clone, fetch or push
+    private ObjectId remoteCommitId;
+
     /**
      * Creates a git utility based on Git repository abstraction
      *
@@ -64,29 +106,31 @@ public class GitUtil {
         this.git = git;
     }
 
+    /**
+     * Sets metrics staging, commits and transport operations are recorded to
+     *
+     * @param metrics the metrics
+     */
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
     /**
      * Adds a file pattern
      *
      * @param filePattern the file pattern
      */
     public void add(String filePattern) {
+        apply(Collections.singleton(filePattern), NO_PATTERNS, NO_PATTERNS, NO_CONTENTS);
+    }
 
-        AddCommand add = git.add();
-        DirCache cache;
-        try {
-            cache = add.addFilepattern(filePattern).call();
-            updateCache(cache);
-        } catch (NoFilepatternException e) {
-            throw new IllegalStateException("Unable to add file to the Git cache", e);
-        } catch (IOException e) {
-            throw new IllegalStateException("Unable to add file to the Git cache", e);
-        } catch (GitAPIException e) {
-            throw new IllegalStateException("Unable to add file to the Git cache", e);
-        }
-
-        if (log.isLoggable(Level.FINE)) {
-            log.fine("Stored " + filePattern + " to the local repository at " + filePattern);
-        }
+    /**
+     * Stages modifications and removals of already tracked files matching a file pattern
+     *
+     * @param filePattern the file pattern
+     */
+    public void update(String filePattern) {
+        apply(NO_PATTERNS, Collections.singleton(filePattern), NO_PATTERNS, NO_CONTENTS);
     }
 
     /**
@@ -95,22 +139,160 @@ public class GitUtil {
      * @param filePattern the file pattern
      */
     public void remove(String filePattern) {
-        RmCommand remove = git.rm();
+        apply(NO_PATTERNS, NO_PATTERNS, Collections.singleton(filePattern), NO_CONTENTS);
+    }
+
+    /**
+     * Starts a transaction which collects index changes until they are committed
+     *
+     * @return the transaction
+     */
+    public GitTransaction begin() {
+        return new GitTransaction(this);
+    }
+
+    // applies changes of a transaction in memory, the index is locked, read and written only once
+    void apply(Collection<String> additions, Collection<String> updates, Collection<String> removals,
+            Map<String, byte[]> contents) {
+        Repository repository = git.getRepository();
+        File workTree = repository.getWorkTree();
+        Metrics.Timer timer = metrics.start(Phase.STAGE, null);
 
-        DirCache cache;
+        DirCache cache = null;
+        ObjectInserter inserter = repository.newObjectInserter();
         try {
-            cache = remove.addFilepattern(filePattern).call();
-            updateCache(cache);
-        } catch (NoFilepatternException e) {
-            throw new IllegalStateException("Unable to remove file from the Git cache", e);
+            cache = repository.lockDirCache();
+
+            // the latest edit of a path wins
+            Map<String, PathEdit> edits = new LinkedHashMap<String, PathEdit>();
+            for (String filePattern : removals) {
+                for (DirCacheEntry entry : getEntries(cache, filePattern)) {
+                    edits.put(entry.getPathString(), new DeletePath(entry));
+                }
+                FileUtils.delete(new File(workTree, filePattern), FileUtils.RECURSIVE | FileUtils.SKIP_MISSING);
+            }
+            for (String filePattern : updates) {
+                for (DirCacheEntry entry : getEntries(cache, filePattern)) {
+                    File file = new File(workTree, entry.getPathString());
+                    if (file.isFile()) {
+                        edits.put(entry.getPathString(), stageFile(cache, inserter, entry.getPathString(), file));
+                    } else {
+                        edits.put(entry.getPathString(), new DeletePath(entry));
+                    }
+                }
+            }
+            for (Entry<String, byte[]> content : contents.entrySet()) {
+                writeFile(new File(workTree, content.getKey()), content.getValue());
+            }
+            for (String filePattern : additions) {
+                stageFiles(edits, cache, inserter, filePattern, new File(workTree, filePattern));
+            }
+
+            DirCacheEditor editor = cache.editor();
+            for (PathEdit edit : edits.values()) {
+                editor.add(edit);
+            }
+            inserter.flush();
+
+            // writes the index and releases the lock
+            if (!editor.commit()) {
+                throw new IllegalStateException("Unable to commit Git repository cache");
+            }
+            timer.stop(Measurement.UNKNOWN, edits.size());
         } catch (IOException e) {
-            throw new IllegalStateException("Unable to remove file from the Git cache", e);
-        } catch (GitAPIException e) {
-            throw new IllegalStateException("Unable to remove file from the Git cache", e);
+            throw new IllegalStateException("Unable to update the Git cache", e);
+        } finally {
+            inserter.release();
+            if (cache != null) {
+                cache.unlock();
+            }
+        }
+
+        if (log.isLoggable(Level.FINE)) {
+            log.fine("Added " + additions + ", updated " + updates + " and removed " + removals
+                    + " in the local repository");
+        }
+    }
+
+    // creates a commit on top of the current branch without using the index or the working tree
+    void commitInCore(Collection<String> additions, Collection<String> removals, Map<String, byte[]> contents,
+            PersonIdent identification, String message) {
+        Repository repository = git.getRepository();
+
+        ObjectInserter inserter = repository.newObjectInserter();
+        RevWalk walk = new RevWalk(repository);
+        Metrics.Timer timer = metrics.start(Phase.STAGE, null);
+        try {
+            ObjectId head = repository.resolve(Constants.HEAD);
+
+            // start with the tree of the current commit
+            DirCache cache = DirCache.newInCore();
+            if (head != null) {
+                DirCacheBuilder builder = cache.builder();
+                builder.addTree(new byte[0], DirCacheEntry.STAGE_0, walk.getObjectReader(), walk.parseCommit(head)
+                        .getTree());
+                builder.finish();
+            }
+
+            // the latest edit of a path wins
+            Map<String, PathEdit> edits = new LinkedHashMap<String, PathEdit>();
+            for (String filePattern : removals) {
+                for (DirCacheEntry entry : getEntries(cache, filePattern)) {
+                    edits.put(entry.getPathString(), new DeletePath(entry));
+                }
+            }
+            long bytes = 0;
+            for (String path : additions) {
+                byte[] content = contents.get(path);
+                if (content == null) {
+                    throw new IllegalStateException("Unable to add " + path
+                            + " to the bare Git repository, content of the file must be given");
+                }
+                edits.put(path, stageBlob(path, inserter.insert(Constants.OBJ_BLOB, content), content.length));
+                bytes += content.length;
+            }
+
+            DirCacheEditor editor = cache.editor();
+            for (PathEdit edit : edits.values()) {
+                editor.add(edit);
+            }
+            editor.finish();
+            ObjectId treeId = cache.writeTree(inserter);
+            timer.stop(bytes, edits.size());
+
+            timer = metrics.start(Phase.COMMIT, null);
+            CommitBuilder commit = new CommitBuilder();
+            commit.setTreeId(treeId);
+            if (head != null) {
+                commit.setParentId(head);
+            }
+            commit.setAuthor(identification);
+            commit.setCommitter(identification);
+            commit.setMessage(message);
+
+            ObjectId commitId = inserter.insert(commit);
+            inserter.flush();
+
+            RefUpdate update = repository.updateRef(Constants.HEAD);
+            update.setNewObjectId(commitId);
+            update.setExpectedOldObjectId(head != null ? head : ObjectId.zeroId());
+            update.setRefLogMessage("commit: " + message, false);
+
+            Result result = update.update(walk);
+            if (result != Result.NEW && result != Result.FAST_FORWARD) {
+                throw new IllegalStateException("Unable to commit into Git repository, update of "
+                        + update.getName() + " finished with " + result);
+            }
+            timer.stop();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to commit into Git repository", e);
+        } finally {
+            walk.release();
+            inserter.release();
         }
 
         if (log.isLoggable(Level.FINE)) {
-            log.fine("Removed " + filePattern + " from the local repository");
+            log.fine("Added " + additions + " and removed " + removals + " in the bare repository");
         }
     }
 
@@ -125,8 +307,10 @@ public class GitUtil {
         commit.setAuthor(identification);
         commit.setCommitter(identification);
         commit.setMessage(message);
+        Metrics.Timer timer = metrics.start(Phase.COMMIT, null);
         try {
             commit.call();
+            timer.stop();
         } catch (NoHeadException e) {
             throw new IllegalStateException("Unable to commit into Git repository", e);
         } catch (NoMessageException e) {
@@ -152,8 +336,12 @@ public class GitUtil {
     public void push(CredentialsProvider credentialsProvider) {
         PushCommand push = git.push();
         push.setCredentialsProvider(credentialsProvider);
+        ObjectCountingMonitor monitor = new ObjectCountingMonitor();
+        push.setProgressMonitor(monitor);
+        Metrics.Timer timer = metrics.start(Phase.PUSH, null);
         try {
-            push.call();
+            recordPush(push.call());
+            timer.stop(Measurement.UNKNOWN, monitor.getObjects());
         } catch (JGitInternalException e) {
             throw new IllegalStateException("Unable to push into remote Git repository", e);
         } catch (InvalidRemoteException e) {
@@ -165,18 +353,127 @@ public class GitUtil {
         }
     }
 
+    /**
+     * Fetches changes from remote repository and makes the current branch identical to its remote counterpart,
+     * discarding all local changes and untracked files
+     *
+     * @param credentialsProvider the credentials provider to get SSH pass phrase
+     * @param singleBranch if {@code true}, only the current branch is fetched
+     */
+    public void synchronizeWithRemote(CredentialsProvider credentialsProvider, boolean singleBranch) {
+        ObjectCountingMonitor monitor = new ObjectCountingMonitor();
+        Metrics.Timer timer = metrics.start(Phase.CLONE, null);
+        long packSize = getPackSize();
+        try {
+            String branch = git.getRepository().getBranch();
+
+            // bare clone maps remote branches directly to local ones, there is no working tree to reset
+            if (isBare()) {
+                String refSpec = singleBranch ? Constants.R_HEADS + branch : Constants.R_HEADS + "*";
+                String trackingSpec = singleBranch ? Constants.R_REMOTES + Constants.DEFAULT_REMOTE_NAME + "/" + branch
+                        : Constants.R_REMOTES + Constants.DEFAULT_REMOTE_NAME + "/*";
+                recordFetch(git.fetch().setCredentialsProvider(credentialsProvider).setRemoveDeletedRefs(true)
+                        .setProgressMonitor(monitor).setRefSpecs(new RefSpec("+" + refSpec + ":" + refSpec),
+                                new RefSpec("+" + refSpec + ":" + trackingSpec)).call(), branch);
+                timer.stop(getPackSize() - packSize, monitor.getObjects());
+                return;
+            }
+
+            String remoteBranch = Constants.R_REMOTES + Constants.DEFAULT_REMOTE_NAME + "/" + branch;
+
+            FetchCommand fetch = git.fetch().setCredentialsProvider(credentialsProvider).setRemoveDeletedRefs(true)
+                    .setProgressMonitor(monitor);
+            if (singleBranch) {
+                fetch.setRefSpecs(new RefSpec("+" + Constants.R_HEADS + branch + ":" + remoteBranch));
+            }
+            recordFetch(fetch.call(), branch);
+
+            git.reset().setMode(ResetType.HARD).setRef(remoteBranch).call();
+            git.clean().call();
+            timer.stop(getPackSize() - packSize, monitor.getObjects());
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to synchronize Git repository with the remote one", e);
+        } catch (GitAPIException e) {
+            throw new IllegalStateException("Unable to synchronize Git repository with the remote one", e);
+        }
+    }
+
+    // rejected push leaves the remote branch where it was
+    private void recordPush(Iterable<PushResult> results) {
+        String branch;
+        try {
+            branch = Constants.R_HEADS + git.getRepository().getBranch();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read current branch of Git repository", e);
+        }
+        for (PushResult result : results) {
+            RemoteRefUpdate update = result.getRemoteUpdate(branch);
+            if (update != null && (update.getStatus() == RemoteRefUpdate.Status.OK
+                    || update.getStatus() == RemoteRefUpdate.Status.UP_TO_DATE)) {
+                remoteCommitId = update.getNewObjectId();
+            }
+        }
+    }
+
+    private void recordFetch(FetchResult result, String branch) {
+        Ref advertised = result.getAdvertisedRef(Constants.R_HEADS + branch);
+        remoteCommitId = advertised != null ? advertised.getObjectId() : null;
+    }
+
+    /**
+     * Releases resources held by the underlying repository
+     */
+    public void close() {
+        git.getRepository().close();
+    }
+
     public void restoreFromBranch(CredentialsProvider credentialsProvider, String branchName) {
+        if (isBare()) {
+            restoreBareFromBranch(credentialsProvider, branchName);
+            return;
+        }
         try {
             String masterBranch = git.getRepository().getBranch();
             git.checkout().setName(branchName).call();
             git.branchDelete().setBranchNames(masterBranch).setForce(true).call();
             git.branchRename().setOldName(branchName).setNewName(masterBranch).call();
-            git.push().setForce(true).call();
+            recordPush(git.push().setForce(true).call());
         } catch (Exception ex) {
             throw new IllegalStateException("Unable to restore repository from branch <" + branchName + ">.", ex);
         }
     }
 
+    // there is nothing to check out, branch is moved to the saved commit directly
+    private void restoreBareFromBranch(CredentialsProvider credentialsProvider, String branchName) {
+        Repository repository = git.getRepository();
+        try {
+            ObjectId saved = repository.resolve(Constants.R_HEADS + branchName);
+            if (saved == null) {
+                throw new IllegalStateException("Unable to restore repository from branch <" + branchName
+                        + ">, it does not exist.");
+            }
+
+            RefUpdate restore = repository.updateRef(Constants.HEAD);
+            restore.setNewObjectId(saved);
+            restore.setForceUpdate(true);
+            Result result = restore.update();
+            if (result != Result.FORCED && result != Result.FAST_FORWARD && result != Result.NO_CHANGE) {
+                throw new IllegalStateException("Unable to restore repository from branch <" + branchName
+                        + ">, update finished with " + result);
+            }
+
+            RefUpdate delete = repository.updateRef(Constants.R_HEADS + branchName);
+            delete.setForceUpdate(true);
+            delete.delete();
+
+            recordPush(git.push().setCredentialsProvider(credentialsProvider).setForce(true).call());
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to restore repository from branch <" + branchName + ">.", e);
+        } catch (GitAPIException e) {
+            throw new IllegalStateException("Unable to restore repository from branch <" + branchName + ">.", e);
+        }
+    }
+
     public void createBranch(String name) {
         try {
             CreateBranchCommand command = git.branchCreate();
@@ -201,22 +498,218 @@ public class GitUtil {
      * @return the repository directory on local file system
      */
     public File getRepositoryDirectory() {
-        return git.getRepository().getWorkTree();// .getRepository().getDirectory();
+        if (isBare()) {
+            return git.getRepository().getDirectory();
+        }
+        return git.getRepository().getWorkTree();
+    }
+
+    /**
+     * Gets size of packs in the repository. Packs are received as they are sent by the remote repository, so the
+     * difference tells how many bytes a clone or a fetch transferred.
+     *
+     * @return total size of pack files in bytes
+     */
+    public long getPackSize() {
+        File[] packs = new File(git.getRepository().getDirectory(), "objects" + File.separator + "pack").listFiles();
+        long size = 0;
+        if (packs != null) {
+            for (File pack : packs) {
+                if (pack.getName().endsWith(".pack")) {
+                    size += pack.length();
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return {@code true} if the repository does not have a working tree
+     */
+    public boolean isBare() {
+        return git.getRepository().isBare();
     }
 
     public boolean fileExists(String fileName) {
-        return new File(getRepositoryDirectory(), fileName).exists();
+        if (!isBare()) {
+            return new File(getRepositoryDirectory(), fileName).exists();
+        }
+
+        // look into the tree of the current commit instead
+        Repository repository = git.getRepository();
+        RevWalk walk = new RevWalk(repository);
+        try {
+            ObjectId head = repository.resolve(Constants.HEAD);
+            if (head == null) {
+                return false;
+            }
+            TreeWalk tree = TreeWalk.forPath(repository, fileName, walk.parseCommit(head).getTree());
+            if (tree == null) {
+                return false;
+            }
+            tree.release();
+            return true;
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read " + fileName + " from Git repository", e);
+        } finally {
+            walk.release();
+        }
+    }
+
+    /**
+     * Records that the remote branch points to the current commit. A freshly cloned repository is in such state, but
+     * not all clones have a tracking branch which would tell it.
+     */
+    public void markSynchronized() {
+        try {
+            remoteCommitId = git.getRepository().resolve(Constants.HEAD);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read current commit of Git repository", e);
+        }
+    }
+
+    /**
+     * Gets id of the object stored under given path, if the object is the same in the current commit and in the commit
+     * the remote branch pointed to after the last clone, fetch or push
+     *
+     * @param fileName the path relative to the repository root
+     * @return the object id or {@code null} if the path does not exist or it was changed by commits not pushed yet
+     */
+    public ObjectId getPushedObjectId(String fileName) {
+        Repository repository = git.getRepository();
+        RevWalk walk = new RevWalk(repository);
+        try {
+            ObjectId head = repository.resolve(Constants.HEAD);
+            ObjectId remote = remoteCommitId;
+            if (head == null || remote == null) {
+                return null;
+            }
+
+            ObjectId local = getObjectId(walk, head, fileName);
+            if (local == null || !local.equals(getObjectId(walk, remote, fileName))) {
+                return null;
+            }
+            return local;
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read " + fileName + " from Git repository", e);
+        } finally {
+            walk.release();
+        }
+    }
+
+    /**
+     * Computes id the content would have if it was stored in the repository, without storing it
+     *
+     * @param content the content
+     * @return the blob id
+     */
+    public ObjectId getBlobId(byte[] content) {
+        return new ObjectInserter.Formatter().idFor(Constants.OBJ_BLOB, content);
+    }
+
+    /**
+     * Computes id the file would have if it was stored in the repository, without storing it
+     *
+     * @param file the file
+     * @return the blob id
+     */
+    public ObjectId getBlobId(File file) {
+        InputStream is = null;
+        try {
+            is = new FileInputStream(file);
+            return new ObjectInserter.Formatter().idFor(Constants.OBJ_BLOB, file.length(), is);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to compute Git object id of " + file.getAbsolutePath(), e);
+        } finally {
+            IOUtils.closeQuietly(is);
+        }
     }
 
-    // update cache after changes
-    private void updateCache(DirCache cache) throws IOException {
-        if (!cache.lock()) {
-            throw new IllegalStateException("Unable to lock Git repository cache");
+    private ObjectId getObjectId(RevWalk walk, ObjectId commit, String fileName) throws IOException {
+        TreeWalk tree = TreeWalk.forPath(walk.getObjectReader(), fileName, walk.parseCommit(commit).getTree());
+        if (tree == null) {
+            return null;
         }
-        cache.write();
-        if (!cache.commit()) {
-            throw new IllegalStateException("Unable to commit Git repository cache");
+        try {
+            return tree.getObjectId(0);
+        } finally {
+            tree.release();
+        }
+    }
+
+    // pattern is either a file or a directory
+    private DirCacheEntry[] getEntries(DirCache cache, String filePattern) {
+        DirCacheEntry entry = cache.getEntry(filePattern);
+        if (entry != null) {
+            return new DirCacheEntry[] { entry };
+        }
+        return cache.getEntriesWithin(filePattern);
+    }
+
+    private void stageFiles(Map<String, PathEdit> edits, DirCache cache, ObjectInserter inserter, String path, File file)
+            throws IOException {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children != null) {
+                for (File child : children) {
+                    stageFiles(edits, cache, inserter, path + "/" + child.getName(), child);
+                }
+            }
+        } else if (file.isFile()) {
+            edits.put(path, stageFile(cache, inserter, path, file));
+        }
+    }
+
+    private void writeFile(File file, byte[] content) throws IOException {
+        file.getParentFile().mkdirs();
+        OutputStream os = new FileOutputStream(file);
+        try {
+            os.write(content);
+        } finally {
+            IOUtils.closeQuietly(os);
+        }
+    }
+
+    private PathEdit stageBlob(String path, final ObjectId objectId, final long length) {
+        return new PathEdit(path) {
+            @Override
+            public void apply(DirCacheEntry entry) {
+                entry.setFileMode(FileMode.REGULAR_FILE);
+                entry.setLength(length);
+                entry.setObjectId(objectId);
+            }
+        };
+    }
+
+    private PathEdit stageFile(DirCache cache, ObjectInserter inserter, final String path, final File file)
+            throws IOException {
+
+        final long length = file.length();
+        final long lastModified = file.lastModified();
+
+        // file was not touched since it was staged last time, so there is no need to hash it again
+        DirCacheEntry existing = cache.getEntry(path);
+        final ObjectId objectId;
+        if (existing != null && !existing.isSmudged() && existing.getLength() == length
+                && existing.getLastModified() == lastModified) {
+            objectId = existing.getObjectId();
+        } else {
+            InputStream is = new FileInputStream(file);
+            try {
+                objectId = inserter.insert(Constants.OBJ_BLOB, length, is);
+            } finally {
+                IOUtils.closeQuietly(is);
+            }
         }
 
+        return new PathEdit(path) {
+            @Override
+            public void apply(DirCacheEntry entry) {
+                entry.setFileMode(FileMode.REGULAR_FILE);
+                entry.setLength(length);
+                entry.setLastModified(lastModified);
+                entry.setObjectId(objectId);
+            }
+        };
     }
 }
@@ -0,0 +1,110 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.openshift.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An exclusive lock backed by a file on the local file system. The lock is shared between all processes on the machine,
+ * so it can be used to guard resources used by several JVMs.
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class LockFile {
+    private static final Logger log = Logger.getLogger(LockFile.class.getName());
+
+    private final File file;
+
+    private final RandomAccessFile raf;
+
+    private final FileLock lock;
+
+    private LockFile(File file, RandomAccessFile raf, FileLock lock) {
+        this.file = file;
+        this.raf = raf;
+        this.lock = lock;
+    }
+
+    /**
+     * Tries to acquire an exclusive lock on the given file. Does not block.
+     *
+     * @param file the lock file, created if it does not exist
+     * @return Acquired lock or {@code null} if the lock is held by another process or by this JVM
+     * @throws IOException if the lock file could not be created or opened
+     */
+    public static LockFile tryAcquire(File file) throws IOException {
+        file.getParentFile().mkdirs();
+
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        FileChannel channel = raf.getChannel();
+        FileLock lock = null;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // already locked by this JVM
+        }
+
+        if (lock == null) {
+            IOUtils.closeQuietly(channel);
+            raf.close();
+            return null;
+        }
+
+        if (log.isLoggable(Level.FINE)) {
+            log.fine("Acquired lock " + file.getAbsolutePath());
+        }
+
+        return new LockFile(file, raf, lock);
+    }
+
+    /**
+     * Releases the lock. The lock file itself is kept on the file system.
+     */
+    public void release() {
+        try {
+            lock.release();
+        } catch (IOException e) {
+            log.warning("Unable to release lock " + file.getAbsolutePath() + ", cause: " + e.getMessage());
+        } finally {
+            IOUtils.closeQuietly(raf.getChannel());
+            try {
+                raf.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+
+        if (log.isLoggable(Level.FINE)) {
+            log.fine("Released lock " + file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * @return the file
+     */
+    public File getFile() {
+        return file;
+    }
+}
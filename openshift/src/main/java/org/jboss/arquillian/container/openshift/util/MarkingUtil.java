@@ -55,6 +55,24 @@ public class MarkingUtil {
         unmarkSkipMavenBuild();
     }
 
+    /**
+     * Marks Arquillian life cycle start as a part of the transaction
+     *
+     * @param transaction the transaction
+     */
+    public void markArquillianLifecycle(GitTransaction transaction) {
+        mark(transaction, SKIP_MAVEN_BUILD);
+    }
+
+    /**
+     * Marks Arquillian life cycle stop as a part of the transaction
+     *
+     * @param transaction the transaction
+     */
+    public void unmarkArquillianLifecycle(GitTransaction transaction) {
+        unmark(transaction, SKIP_MAVEN_BUILD);
+    }
+
     /**
      * Removes arbitrary marker in the local repository
      *
@@ -64,13 +82,38 @@ public class MarkingUtil {
         git.remove(markerName);
     }
 
+    /**
+     * Removes arbitrary marker as a part of the transaction
+     *
+     * @param transaction the transaction
+     * @param markerName the name of the marker
+     */
+    public void unmark(GitTransaction transaction, String markerName) {
+        transaction.remove(markerName);
+    }
+
     /**
      * Adds arbitrary marker in the local repository
      *
      * @param markerName the name of the marker
      */
     public void mark(String markerName) {
+        createMarker(markerName);
+        git.add(markerName);
+    }
 
+    /**
+     * Adds arbitrary marker as a part of the transaction
+     *
+     * @param transaction the transaction
+     * @param markerName the name of the marker
+     */
+    public void mark(GitTransaction transaction, String markerName) {
+        // markers are empty, the content is given so they can be added to a bare repository as well
+        transaction.add(markerName, new byte[0]);
+    }
+
+    private void createMarker(String markerName) {
         StringBuilder sb = new StringBuilder(git.getRepositoryDirectory().getAbsolutePath());
         sb.append("/").append(markerName);
         File file = new File(sb.toString());
@@ -79,8 +122,6 @@ public class MarkingUtil {
         } catch (IOException e) {
             throw new IllegalStateException("Unable to create a marker file at " + markerName + " e.g. " + sb.toString(), e);
         }
-
-        git.add(markerName);
     }
 
     private void markSkipMavenBuild() {
@@ -17,6 +17,8 @@
 package org.jboss.arquillian.container.openshift;
 
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
 
 import javax.servlet.Servlet;
 
@@ -26,6 +28,7 @@ import org.jboss.arquillian.container.openshift.archive.ArchiveUtil;
 import org.jboss.arquillian.container.openshift.servlet.Servlet1;
 import org.jboss.arquillian.container.openshift.servlet.Servlet2;
 import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.Asset;
 import org.jboss.shrinkwrap.api.spec.EnterpriseArchive;
 import org.jboss.shrinkwrap.api.spec.JavaArchive;
 import org.jboss.shrinkwrap.api.spec.WebArchive;
@@ -76,6 +79,57 @@ public class ArchiveUtilTestCase {
         Assert.assertEquals("There is two Servlet implementation in the archive", 2, servlets.size());
     }
 
+    @Test
+    public void testEarContentOrdering() {
+        EnterpriseArchive ear = ShrinkWrap.create(EnterpriseArchive.class)
+                .addAsModule(ShrinkWrap.create(WebArchive.class, "first.war").addClass(Servlet1.class))
+                .addAsModule(ShrinkWrap.create(JavaArchive.class, "first.jar").addClass(Object.class))
+                .addAsModule(ShrinkWrap.create(JavaArchive.class, "second.jar").addClass(String.class));
+
+        // scanning is parallel, yet the result is the same on every run
+        for (int i = 0; i < 10; i++) {
+            Iterator<String> classes = ArchiveUtil.getDefinedClasses(ear).iterator();
+            String first = classes.next();
+            String second = classes.next();
+
+            Assert.assertTrue("JARs are scanned before WARs", Object.class.getName().equals(first)
+                    || String.class.getName().equals(first));
+            Assert.assertTrue("JARs are scanned before WARs", Object.class.getName().equals(second)
+                    || String.class.getName().equals(second));
+            Assert.assertEquals("WAR is scanned last", Servlet1.class.getName(), classes.next());
+        }
+    }
+
+    @Test
+    public void testExplodedContent() {
+        Map<String, Asset> content = ArchiveUtil.getExplodedContent(createEarDeployment());
+
+        Assert.assertEquals("There are three nested archives in the archive", 3, content.size());
+        for (String path : content.keySet()) {
+            Assert.assertFalse("Path " + path + " is relative to the archive root", path.startsWith("/"));
+        }
+
+        content = ArchiveUtil.getExplodedContent(createWarDeployment1());
+        Assert.assertTrue("Class is stored under WEB-INF/classes",
+                content.containsKey("WEB-INF/classes/org/jboss/arquillian/container/openshift/servlet/Servlet1.class"));
+    }
+
+    @Test
+    public void testContentDigest() {
+        String digest = ArchiveUtil.getContentDigest(createNamedEarDeployment(Servlet2.class));
+
+        Assert.assertEquals("Archives with the same content have the same digest", digest,
+                ArchiveUtil.getContentDigest(createNamedEarDeployment(Servlet2.class)));
+        Assert.assertFalse("Change in a nested archive changes the digest",
+                digest.equals(ArchiveUtil.getContentDigest(createNamedEarDeployment(Servlet1.class))));
+    }
+
+    private EnterpriseArchive createNamedEarDeployment(Class<?> webClass) {
+        return ShrinkWrap.create(EnterpriseArchive.class, "test.ear")
+                .addAsModule(ShrinkWrap.create(WebArchive.class, "test.war").addClass(webClass))
+                .addAsModule(ShrinkWrap.create(JavaArchive.class, "test.jar").addClass(Object.class));
+    }
+
     private EnterpriseArchive createEarDeployment() {
         return ShrinkWrap.create(EnterpriseArchive.class)
                 .addAsModule(ShrinkWrap.create(WebArchive.class).addClass(Servlet1.class))
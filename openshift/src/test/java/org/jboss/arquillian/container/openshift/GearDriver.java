@@ -0,0 +1,69 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.openshift;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import org.jboss.arquillian.container.spi.client.container.DeploymentException;
+import org.jboss.shrinkwrap.api.Archive;
+
+/**
+ * Drives a single {@link Gear} from other packages, e.g. from benchmarks, without making the gear itself public
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class GearDriver {
+
+    private final Gear gear;
+
+    /**
+     * Creates a driver of a gear
+     *
+     * @param configuration the validated configuration of the application
+     */
+    public GearDriver(OpenShiftContainerConfiguration configuration) {
+        this.gear = new Gear(configuration, null);
+    }
+
+    /**
+     * Clones the repository of the application
+     */
+    public void start() {
+        gear.start();
+    }
+
+    /**
+     * Replaces the archive with the same name, pushes it and waits until it is deployed
+     *
+     * @param archive the archive
+     * @throws DeploymentException if the archive was not deployed within the timeout
+     */
+    public void redeploy(Archive<?> archive) throws DeploymentException {
+        Collection<String> names = Collections.singleton(archive.getName());
+        gear.commitDeployment(archive, names);
+        gear.push(names);
+    }
+
+    /**
+     * Restores the repository of the application and releases it
+     */
+    public void stop() {
+        gear.stop(false);
+    }
+}
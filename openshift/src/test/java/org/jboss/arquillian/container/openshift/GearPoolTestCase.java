@@ -0,0 +1,123 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2009, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.openshift;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.jboss.arquillian.container.openshift.GearPool.Lease;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests leasing of applications from the gear pool
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class GearPoolTestCase {
+
+    private File directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = File.createTempFile("arquillian-gears", "");
+        directory.delete();
+        directory.mkdirs();
+    }
+
+    @After
+    public void deleteDirectory() {
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void testExclusiveLeases() {
+        GearPool pool = new GearPool(directory, "namespace", "rhcloud.com");
+        List<String[]> applications = applications("first", "second");
+
+        Lease first = pool.lease(applications, 0);
+        Lease second = pool.lease(applications, 0);
+        Assert.assertEquals("First application is leased", "first", first.getApplication());
+        Assert.assertEquals("Second application is leased", "second", second.getApplication());
+        Assert.assertEquals("SSH user name belongs to the application", "user-second", second.getSshUserName());
+
+        first.release();
+        Lease third = pool.lease(applications, 0);
+        Assert.assertEquals("Released application is leased again", "first", third.getApplication());
+
+        second.release();
+        third.release();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testExhaustedPool() {
+        GearPool pool = new GearPool(directory, "namespace", "rhcloud.com");
+        List<String[]> applications = applications("only");
+
+        Lease lease = pool.lease(applications, 0);
+        try {
+            pool.lease(applications, 600);
+        } finally {
+            lease.release();
+        }
+    }
+
+    @Test
+    public void testLeasesPerNamespace() {
+        List<String[]> applications = applications("only");
+
+        Lease lease = new GearPool(directory, "namespace", "rhcloud.com").lease(applications, 0);
+        try {
+            Lease other = new GearPool(directory, "other", "rhcloud.com").lease(applications, 0);
+            Assert.assertEquals("Application of the same name in another namespace is leased", "only",
+                    other.getApplication());
+            other.release();
+        } finally {
+            lease.release();
+        }
+    }
+
+    @Test
+    public void testPoolConfiguration() {
+        OpenShiftContainerConfiguration configuration = new OpenShiftContainerConfiguration();
+        configuration.setNamespace("namespace");
+        configuration.setLogin("login");
+        configuration.setGearPool("first:user1,second:user2");
+        configuration.validate();
+
+        Assert.assertEquals("Applications of the pool are parsed", 2, configuration.getGearPoolApplications().size());
+        Assert.assertEquals("Leased application is targeted", "second-namespace.rhcloud.com",
+                configuration.forApplication("second", "user2").getHostName());
+    }
+
+    private List<String[]> applications(String... names) {
+        List<String[]> applications = new ArrayList<String[]>();
+        for (String name : names) {
+            applications.add(new String[] { name, "user-" + name });
+        }
+        return applications;
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.openshift;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Collections;
+
+import junit.framework.Assert;
+
+import org.jboss.arquillian.container.openshift.simulator.LocalGear;
+import org.jboss.arquillian.container.spi.client.container.DeploymentException;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests deployment lifecycle of a gear against a local gear, without network access
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class LocalGearTestCase {
+
+    private static final long PUSH_TIMEOUT = 10000;
+
+    private LocalGear localGear;
+
+    private Gear gear;
+
+    @Before
+    public void startGear() throws Exception {
+        localGear = new LocalGear("local").start();
+
+        OpenShiftContainerConfiguration configuration = localGear.configure(new OpenShiftContainerConfiguration());
+        configuration.setDeploymentTimeoutInSeconds(10);
+        configuration.validate();
+
+        gear = new Gear(configuration, null);
+        gear.start();
+    }
+
+    @After
+    public void stopGear() throws IOException {
+        try {
+            gear.stop(false);
+        } finally {
+            localGear.stop();
+        }
+    }
+
+    @Test
+    public void testDeployAndUndeploy() throws Exception {
+        WebArchive war = createWebArchive("Hello");
+
+        Assert.assertTrue("Archive was committed", gear.commitDeployment(war, Collections.<String> emptyList()));
+        gear.push(Collections.singleton(war.getName()));
+
+        Assert.assertTrue("Archive is marked as deployed", marker("test.war.deployed").exists());
+        Assert.assertEquals("Content of the archive is served", "Hello", get("/test/index.html"));
+
+        gear.commitUndeployment(Collections.singleton(war.getName()));
+        gear.push();
+
+        Assert.assertTrue("Removal was processed", localGear.awaitPush(PUSH_TIMEOUT));
+        Assert.assertTrue("Archive is marked as undeployed", marker("test.war.undeployed").exists());
+        Assert.assertFalse("Archive is no longer marked as deployed", marker("test.war.deployed").exists());
+    }
+
+    @Test
+    public void testRedeployWaitsForNewContent() throws Exception {
+        gear.commitDeployment(createWebArchive("Hello"), Collections.<String> emptyList());
+        gear.push(Collections.singleton("test.war"));
+
+        gear.commitDeployment(createWebArchive("Bye"), Collections.singleton("test.war"));
+        gear.push(Collections.singleton("test.war"));
+
+        Assert.assertEquals("Content of the new archive is served", "Bye", get("/test/index.html"));
+    }
+
+    @Test
+    public void testFailedDeployment() throws Exception {
+        localGear.setFailure("test.war", "Broken archive");
+
+        gear.commitDeployment(createWebArchive("Hello"), Collections.<String> emptyList());
+        try {
+            gear.push(Collections.singleton("test.war"));
+            Assert.fail("Failed deployment was reported");
+        } catch (DeploymentException e) {
+            Assert.assertTrue("Failure of the server is reported", e.getMessage().contains("Broken archive"));
+        }
+        Assert.assertTrue("Archive is marked as failed", marker("test.war.failed").exists());
+    }
+
+    @Test
+    public void testFailedDeploymentIsPushedAgain() throws Exception {
+        localGear.setFailure("test.war", "Broken archive");
+
+        gear.commitDeployment(createWebArchive("Hello"), Collections.<String> emptyList());
+        try {
+            gear.push(Collections.singleton("test.war"));
+            Assert.fail("Failed deployment was reported");
+        } catch (DeploymentException e) {
+            // expected
+        }
+
+        localGear.setFailure("test.war", null);
+        Assert.assertTrue("Pushed archive which failed to deploy was committed again",
+                gear.commitDeployment(createWebArchive("Hello"), Collections.singleton("test.war")));
+        gear.push(Collections.singleton("test.war"));
+
+        Assert.assertFalse("Deployed archive is skipped",
+                gear.commitDeployment(createWebArchive("Hello"), Collections.singleton("test.war")));
+    }
+
+    private WebArchive createWebArchive(String content) {
+        return ShrinkWrap.create(WebArchive.class, "test.war").add(new StringAsset(content), "index.html");
+    }
+
+    private File marker(String name) {
+        return new File(localGear.getDeploymentsDirectory(), name);
+    }
+
+    private String get(String path) throws IOException {
+        URL url = new URL("http", localGear.getHostName(), localGear.getHttpPort(), path);
+        InputStream is = url.openStream();
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+            return bytes.toString("UTF-8");
+        } finally {
+            is.close();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2009, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.openshift;
+
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.jboss.arquillian.container.spi.ConfigurationException;
+import org.junit.Test;
+
+/**
+ * Tests configuration of multiple target applications
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class OpenShiftContainerConfigurationTestCase {
+
+    @Test
+    public void testSingleTarget() {
+        OpenShiftContainerConfiguration configuration = sampleConfiguration();
+
+        List<OpenShiftContainerConfiguration> targets = configuration.getTargets();
+        Assert.assertEquals("There is only one target", 1, targets.size());
+        Assert.assertSame("Target is the configuration itself", configuration, targets.get(0));
+    }
+
+    @Test
+    public void testAdditionalTargets() {
+        OpenShiftContainerConfiguration configuration = sampleConfiguration();
+        configuration.setAdditionalApplications("second:user2, third:user3");
+        configuration.validate();
+
+        List<OpenShiftContainerConfiguration> targets = configuration.getTargets();
+        Assert.assertEquals("There are three targets", 3, targets.size());
+
+        OpenShiftContainerConfiguration second = targets.get(1);
+        Assert.assertEquals("Application is replaced", "second-namespace.rhcloud.com", second.getHostName());
+        Assert.assertEquals("SSH user name is replaced", "ssh://user2@second-namespace.rhcloud.com/~/git/second.git/",
+                second.getRemoteRepositoryUri());
+        Assert.assertEquals("Other properties are kept", configuration.getCartridgeType(), second.getCartridgeType());
+        Assert.assertNull("Copies do not have additional applications", second.getAdditionalApplications());
+
+        Assert.assertEquals("Third application is configured", "third-namespace.rhcloud.com", targets.get(2)
+                .getHostName());
+    }
+
+    @Test
+    public void testLocalTargets() {
+        OpenShiftContainerConfiguration configuration = sampleConfiguration();
+        configuration.setRemoteRepositoryUri("file:///tmp/gears/{application}.git");
+        configuration.setHostName("127.0.0.1");
+        configuration.setHttpPort(8080);
+        configuration.setAdditionalApplications("second:user2");
+        configuration.validate();
+
+        Assert.assertEquals("Application is put into the repository URI", "file:///tmp/gears/first.git",
+                configuration.getRemoteRepositoryUri());
+        Assert.assertEquals("Port is a part of the root context", "http://127.0.0.1:8080",
+                configuration.getRootContextUrl());
+        Assert.assertEquals("Additional application has its own repository", "file:///tmp/gears/second.git",
+                configuration.getTargets().get(1).getRemoteRepositoryUri());
+        Assert.assertEquals("Host name of the application is not used by other ones", "second-namespace.rhcloud.com",
+                configuration.getTargets().get(1).getHostName());
+    }
+
+    @Test
+    public void testHostNameTemplate() {
+        OpenShiftContainerConfiguration configuration = sampleConfiguration();
+        configuration.setHostName("{application}.gears.local");
+        configuration.setAdditionalApplications("second:user2");
+        configuration.validate();
+
+        Assert.assertEquals("Application is put into the host name", "first.gears.local", configuration.getHostName());
+        Assert.assertEquals("Additional application has its own host", "second.gears.local", configuration
+                .getTargets().get(1).getHostName());
+    }
+
+    @Test
+    public void testPoolWithoutApplication() {
+        OpenShiftContainerConfiguration configuration = sampleConfiguration();
+        configuration.setApplication(null);
+        configuration.setRemoteRepositoryUri("file:///tmp/gears/{application}.git");
+        configuration.setGearPool("first:user1,second:user2");
+        configuration.validate();
+
+        Assert.assertEquals("Leased application is put into the repository URI", "file:///tmp/gears/second.git",
+                configuration.forApplication("second", "user2").getRemoteRepositoryUri());
+    }
+
+    @Test(expected = ConfigurationException.class)
+    public void testInvalidTarget() {
+        OpenShiftContainerConfiguration configuration = sampleConfiguration();
+        configuration.setAdditionalApplications("second");
+        configuration.validate();
+    }
+
+    private OpenShiftContainerConfiguration sampleConfiguration() {
+        OpenShiftContainerConfiguration configuration = new OpenShiftContainerConfiguration();
+        configuration.setNamespace("namespace");
+        configuration.setApplication("first");
+        configuration.setLogin("login");
+        configuration.setSshUserName("user1");
+        return configuration;
+    }
+}
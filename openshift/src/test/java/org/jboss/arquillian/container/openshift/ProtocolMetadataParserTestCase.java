@@ -16,10 +16,16 @@
  */
 package org.jboss.arquillian.container.openshift;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Properties;
+
 import junit.framework.Assert;
 
 import org.jboss.arquillian.container.openshift.OpenShiftContainerConfiguration;
 import org.jboss.arquillian.container.openshift.ProtocolMetaDataParser;
+import org.jboss.arquillian.container.openshift.archive.ArchiveUtil;
 import org.jboss.arquillian.container.openshift.servlet.Servlet1;
 import org.jboss.arquillian.container.openshift.servlet.Servlet2;
 import org.jboss.arquillian.container.openshift.servlet.Servlet3;
@@ -145,6 +151,88 @@ public class ProtocolMetadataParserTestCase {
 
     }
 
+    @Test
+    public void testCachedServlets() throws IOException {
+        File storeDirectory = File.createTempFile("arquillian-metadata", "");
+        storeDirectory.delete();
+
+        OpenShiftContainerConfiguration configuration = new OpenShiftContainerConfiguration();
+        configuration.setMetadataCacheDirectory(storeDirectory.getAbsolutePath());
+
+        ProtocolMetaData data = new ProtocolMetaDataParser(configuration).parse(sampleEarWithApplicationXml());
+        Assert.assertEquals("Metadata were stored", 1, storeDirectory.listFiles().length);
+
+        // the same content, but a different archive instance and parser, read from the store
+        ProtocolMetaDataCache.clear();
+        ProtocolMetaData cached = new ProtocolMetaDataParser(configuration).parse(sampleEarWithApplicationXml());
+
+        HTTPContext context = data.getContext(HTTPContext.class);
+        HTTPContext cachedContext = cached.getContext(HTTPContext.class);
+        Assert.assertEquals("Same servlets are found", context.getServlets().size(), cachedContext.getServlets().size());
+        Assert.assertEquals("Context root of arquillian1.war is read from the cache", "/arquillian-ear-1", cachedContext
+                .getServletByName("Servlet1").getContextRoot());
+        Assert.assertEquals("Context root of arquillian2.war is read from the cache", "/arquillian-ear-2", cachedContext
+                .getServletByName("Servlet2").getContextRoot());
+
+        for (File file : storeDirectory.listFiles()) {
+            file.delete();
+        }
+        storeDirectory.delete();
+    }
+
+    @Test
+    public void testCachedServletsOfOtherVersion() throws IOException {
+        File storeDirectory = File.createTempFile("arquillian-metadata", "");
+        storeDirectory.delete();
+        storeDirectory.mkdirs();
+
+        OpenShiftContainerConfiguration configuration = new OpenShiftContainerConfiguration();
+        configuration.setMetadataCacheDirectory(storeDirectory.getAbsolutePath());
+
+        // entry written by an older scanner, with a wrong servlet name
+        Properties stale = new Properties();
+        stale.setProperty("version", String.valueOf(ProtocolMetaDataCache.FORMAT_VERSION - 1));
+        stale.setProperty("servlets", "1");
+        stale.setProperty("0.name", "Stale");
+        stale.setProperty("0.contextRoot", "/stale");
+        String digest = ArchiveUtil.getContentDigest(sampleEarWithApplicationXml());
+        File file = new File(storeDirectory, ProtocolMetaDataCache.getStoreName(digest));
+        FileOutputStream os = new FileOutputStream(file);
+        try {
+            stale.store(os, null);
+        } finally {
+            os.close();
+        }
+
+        ProtocolMetaDataCache.clear();
+        ProtocolMetaData data = new ProtocolMetaDataParser(configuration).parse(sampleEarWithApplicationXml());
+
+        HTTPContext context = data.getContext(HTTPContext.class);
+        Assert.assertNull("Entry of other version is ignored", context.getServletByName("Stale"));
+        Assert.assertNotNull("Archive is scanned again", context.getServletByName("Servlet1"));
+
+        for (File file : storeDirectory.listFiles()) {
+            file.delete();
+        }
+        storeDirectory.delete();
+    }
+
+    @Test
+    public void testCachedServletsPerContext() {
+        OpenShiftContainerConfiguration first = new OpenShiftContainerConfiguration();
+        first.setNamespace("namespace");
+        first.setApplication("first");
+        OpenShiftContainerConfiguration second = first.forApplication("second", "user2");
+
+        ProtocolMetaData firstData = new ProtocolMetaDataParser(first).parse(sampleWar());
+        ProtocolMetaData secondData = new ProtocolMetaDataParser(second).parse(sampleWar());
+
+        Assert.assertEquals("Servlet of the first application stays there", first.getHostName(), firstData
+                .getContext(HTTPContext.class).getServletByName("Servlet1").getBaseURI().getHost());
+        Assert.assertEquals("Servlet of the second application is there", second.getHostName(), secondData
+                .getContext(HTTPContext.class).getServletByName("Servlet1").getBaseURI().getHost());
+    }
+
     private EnterpriseArchive sampleEar() {
         return ShrinkWrap.create(EnterpriseArchive.class)
                 .addAsModule(ShrinkWrap.create(WebArchive.class, "arquillian1.war").addClass(Servlet1.class))
@@ -0,0 +1,101 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2009, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.openshift;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests backoff of the readiness prober
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class ReadinessProberTestCase {
+
+    @Test
+    public void testFastPollPhase() {
+        ReadinessProber prober = new ReadinessProber(100, 2000, 2.0, 3);
+
+        for (int i = 0; i < 3; i++) {
+            long interval = prober.nextInterval(i);
+            Assert.assertTrue("Fast poll interval " + interval + " is within jitter", interval >= 80 && interval <= 120);
+        }
+    }
+
+    @Test
+    public void testExponentialBackoff() {
+        ReadinessProber prober = new ReadinessProber(100, 2000, 2.0, 0);
+
+        long interval = prober.nextInterval(0);
+        Assert.assertTrue("First interval " + interval + " is doubled", interval >= 160 && interval <= 240);
+
+        interval = prober.nextInterval(2);
+        Assert.assertTrue("Third interval " + interval + " is doubled three times", interval >= 640 && interval <= 960);
+    }
+
+    @Test
+    public void testMaxInterval() {
+        ReadinessProber prober = new ReadinessProber(100, 2000, 2.0, 0);
+
+        long interval = prober.nextInterval(20);
+        Assert.assertTrue("Interval " + interval + " does not exceed maximum", interval >= 1600 && interval <= 2400);
+    }
+
+    @Test
+    public void testUnreachableUrl() {
+        ReadinessProber prober = new ReadinessProber(10, 20, 2.0, 1);
+
+        boolean ready = prober.await("http://localhost:1/deploy?name=test.war", System.currentTimeMillis() + 200);
+
+        Assert.assertFalse("Unreachable url is not ready", ready);
+        Assert.assertTrue("Several probes were sent", prober.getProbeCount() > 1);
+        Assert.assertEquals("Timing of each probe was recorded", prober.getProbeCount(), prober.getProbeTimes().size());
+    }
+
+    @Test
+    public void testImmediateAnswerIsDelayed() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                // server which does not hold the request
+                exchange.sendResponseHeaders(204, -1);
+                exchange.close();
+            }
+        });
+        server.start();
+        try {
+            ReadinessProber prober = new ReadinessProber(100, 100, 1.0, 0);
+            String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/deploy?name=test.war";
+
+            Assert.assertFalse("Url is not ready", prober.await(url, System.currentTimeMillis() + 500));
+            Assert.assertTrue("Probes were delayed, " + prober.getProbeCount() + " were sent",
+                    prober.getProbeCount() <= 10);
+        } finally {
+            server.stop(0);
+        }
+    }
+}
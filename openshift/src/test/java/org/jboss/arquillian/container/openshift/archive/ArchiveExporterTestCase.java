@@ -0,0 +1,99 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2009, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.openshift.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import junit.framework.Assert;
+
+import org.jboss.arquillian.container.openshift.servlet.Servlet1;
+import org.jboss.shrinkwrap.api.ArchivePaths;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.importer.ZipImporter;
+import org.jboss.shrinkwrap.api.spec.EnterpriseArchive;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Test;
+
+/**
+ * Tests export of archives into files
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class ArchiveExporterTestCase {
+
+    @Test
+    public void testNestedArchives() throws IOException {
+        EnterpriseArchive ear = ShrinkWrap.create(EnterpriseArchive.class, "test.ear")
+                .addAsModule(ShrinkWrap.create(WebArchive.class, "test.war").addClass(Servlet1.class))
+                .addAsModule(ShrinkWrap.create(JavaArchive.class, "test.jar").addClass(ConfigService.class));
+
+        File file = File.createTempFile("arquillian-export", ".ear");
+        try {
+            ArchiveExporter.exportTo(ear, file);
+
+            EnterpriseArchive imported = ShrinkWrap.create(ZipImporter.class, "test.ear").importFrom(file)
+                    .as(EnterpriseArchive.class);
+
+            Assert.assertEquals("Exported archive has the same entries", ArchiveUtil.getExplodedContent(ear).keySet(),
+                    ArchiveUtil.getExplodedContent(imported).keySet());
+
+            WebArchive war = imported.getAsType(WebArchive.class, "test.war");
+            Assert.assertTrue("Nested archive is readable", war.contains(ArchivePaths
+                    .create("WEB-INF/classes/org/jboss/arquillian/container/openshift/servlet/Servlet1.class")));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testRepeatableExport() throws IOException {
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        String firstHash = ArchiveExporter.exportTo(createWebArchive(), first);
+
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        String secondHash = ArchiveExporter.exportTo(createWebArchive(), second);
+
+        Assert.assertTrue("The same archive is exported into the same bytes",
+                Arrays.equals(first.toByteArray(), second.toByteArray()));
+        Assert.assertEquals("The same archive has the same hash", firstHash, secondHash);
+    }
+
+    @Test
+    public void testOverwrite() throws IOException {
+        File file = File.createTempFile("arquillian-export", ".jar");
+        try {
+            ArchiveExporter.exportTo(ShrinkWrap.create(JavaArchive.class).addClasses(ConfigService.class,
+                    ConfigServiceMBean.class, GreetingService.class), file);
+            long length = file.length();
+
+            ArchiveExporter.exportTo(ShrinkWrap.create(JavaArchive.class).addClass(ConfigServiceMBean.class), file);
+            Assert.assertTrue("Previous content was overwritten", file.length() < length);
+        } finally {
+            file.delete();
+        }
+    }
+
+    private WebArchive createWebArchive() {
+        return ShrinkWrap.create(WebArchive.class, "test.war").addClass(Servlet1.class)
+                .addAsLibrary(ShrinkWrap.create(JavaArchive.class, "test.jar").addClass(ConfigService.class));
+    }
+}
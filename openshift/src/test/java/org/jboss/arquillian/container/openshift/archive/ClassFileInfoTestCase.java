@@ -0,0 +1,113 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2009, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.openshift.archive;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+
+import javax.servlet.Servlet;
+
+import junit.framework.Assert;
+
+import org.jboss.arquillian.container.openshift.servlet.Servlet1;
+import org.jboss.arquillian.container.openshift.servlet.Servlet3;
+import org.jboss.arquillian.container.openshift.util.IOUtils;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.spec.EnterpriseArchive;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Test;
+
+/**
+ * Tests reading of class files
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class ClassFileInfoTestCase {
+
+    @Test
+    public void testHierarchy() throws IOException {
+        ClassFileInfo info = parse(ConfigService.class);
+
+        Assert.assertEquals("Class name is read", ConfigService.class.getName(), info.getName());
+        Assert.assertEquals("Simple name is derived", "ConfigService", info.getSimpleName());
+        Assert.assertEquals("Superclass is read", Object.class.getName(), info.getSuperName());
+        Assert.assertEquals("Interface is read", ConfigServiceMBean.class.getName(), info.getInterfaceNames().get(0));
+    }
+
+    @Test
+    public void testNestedSimpleNames() throws IOException {
+        Object anonymous = new Object() {
+        };
+        class Local {
+        }
+
+        Assert.assertEquals("Member class name is read", "Member", parse(Member.class).getSimpleName());
+        Assert.assertEquals("Local class name is read", Local.class.getSimpleName(), parse(Local.class).getSimpleName());
+        Assert.assertEquals("Anonymous class does not have a name", "", parse(anonymous.getClass()).getSimpleName());
+    }
+
+    @Test
+    public void testAnnotationValues() throws IOException {
+        ClassFileInfo info = parse(Servlet3.class);
+        Assert.assertTrue("WebServlet annotation is present", info.isAnnotationPresent("javax.servlet.annotation.WebServlet"));
+        Assert.assertEquals("Servlet name is read", "FooBar",
+                info.getAnnotationValue("javax.servlet.annotation.WebServlet", "name"));
+
+        info = parse(Servlet1.class);
+        Assert.assertTrue("WebServlet annotation is present", info.isAnnotationPresent("javax.servlet.annotation.WebServlet"));
+        Assert.assertNull("Servlet name is not set", info.getAnnotationValue("javax.servlet.annotation.WebServlet", "name"));
+    }
+
+    @Test
+    public void testObject() throws IOException {
+        ClassFileInfo info = parse(Object.class);
+        Assert.assertNull("Object does not have a superclass", info.getSuperName());
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidClassFile() throws IOException {
+        ClassFileInfo.parse(IOUtils.toInputStream("definitely not a class file"));
+    }
+
+    @Test
+    public void testDefinedClassInfos() {
+        EnterpriseArchive ear = ShrinkWrap.create(EnterpriseArchive.class)
+                .addAsModule(ShrinkWrap.create(WebArchive.class).addClasses(Servlet1.class, Servlet3.class))
+                .addAsModule(ShrinkWrap.create(JavaArchive.class).addClass(ConfigService.class));
+
+        Collection<ClassFileInfo> servlets = ArchiveUtil.getDefinedClassInfosOf(ear, Servlet.class.getName());
+        Assert.assertEquals("There are two Servlet implementations in the archive", 2, servlets.size());
+
+        Collection<ClassFileInfo> mbeans = ArchiveUtil.getDefinedClassInfosOf(ear, ConfigServiceMBean.class.getName());
+        Assert.assertEquals("Interface outside of the archive is matched by name", 1, mbeans.size());
+    }
+
+    static class Member {
+    }
+
+    private ClassFileInfo parse(Class<?> clazz) throws IOException {
+        InputStream is = clazz.getResourceAsStream("/" + clazz.getName().replace('.', '/') + ".class");
+        try {
+            return ClassFileInfo.parse(is);
+        } finally {
+            IOUtils.closeQuietly(is);
+        }
+    }
+}
@@ -17,6 +17,11 @@
  */
 package org.jboss.arquillian.container.openshift.auth;
 
+import java.io.File;
+
+import junit.framework.Assert;
+
+import org.eclipse.jgit.util.FS;
 import org.jboss.arquillian.container.openshift.OpenShiftContainerConfiguration;
 import org.jboss.arquillian.container.openshift.auth.ArquillianSshSessionFactory;
 import org.junit.Test;
@@ -25,6 +30,9 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.KeyPair;
+
 /**
  * Tests SSH session factory
  *
@@ -55,4 +63,42 @@ public class SshSessionFactoryTestCase {
         new ArquillianSshSessionFactory(configuration);
     }
 
+    @Test
+    public void reuseConfiguration() throws Exception {
+        File identity = File.createTempFile("arquillian-identity", "");
+        KeyPair.genKeyPair(new JSch(), KeyPair.RSA, 1024).writePrivateKey(identity.getAbsolutePath());
+        try {
+            Mockito.when(configuration.getIdentityFile()).thenReturn(identity.getAbsolutePath());
+            Mockito.when(configuration.isDisableStrictHostChecking()).thenReturn(true);
+
+            ArquillianSshSessionFactory first = new ArquillianSshSessionFactory(configuration);
+            ArquillianSshSessionFactory second = new ArquillianSshSessionFactory(configuration);
+            Assert.assertSame("Configuration is shared", first.getJSch(null, FS.DETECTED),
+                    second.getJSch(null, FS.DETECTED));
+
+            identity.setLastModified(identity.lastModified() - 10000);
+            ArquillianSshSessionFactory modified = new ArquillianSshSessionFactory(configuration);
+            Assert.assertNotSame("Modified identity is read again", first.getJSch(null, FS.DETECTED),
+                    modified.getJSch(null, FS.DETECTED));
+        } finally {
+            identity.delete();
+        }
+    }
+
+    @Test
+    public void invalidIdentityIsNotReused() throws Exception {
+        File identity = File.createTempFile("arquillian-identity", "");
+        try {
+            Mockito.when(configuration.getIdentityFile()).thenReturn(identity.getAbsolutePath());
+            Mockito.when(configuration.isDisableStrictHostChecking()).thenReturn(true);
+
+            ArquillianSshSessionFactory first = new ArquillianSshSessionFactory(configuration);
+            ArquillianSshSessionFactory second = new ArquillianSshSessionFactory(configuration);
+            Assert.assertNotSame("Configuration without identity is not shared", first.getJSch(null, FS.DETECTED),
+                    second.getJSch(null, FS.DETECTED));
+        } finally {
+            identity.delete();
+        }
+    }
+
 }
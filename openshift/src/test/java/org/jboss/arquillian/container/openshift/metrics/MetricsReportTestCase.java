@@ -0,0 +1,98 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2009, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.openshift.metrics;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+/**
+ * Tests recording of measurements and their report
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class MetricsReportTestCase {
+
+    @Test
+    public void testDrain() {
+        Metrics metrics = new Metrics("foo");
+        metrics.start(Phase.EXPORT, "test.war").stop(1024, 3);
+        metrics.start(Phase.PUSH, null).stop();
+
+        List<Measurement> measurements = metrics.drain();
+        Assert.assertEquals("Both phases were recorded", 2, measurements.size());
+        Assert.assertEquals("Phases are in order", Phase.EXPORT, measurements.get(0).getPhase());
+        Assert.assertEquals("Application is recorded", "foo", measurements.get(0).getApplication());
+        Assert.assertEquals("Bytes are recorded", 1024, measurements.get(0).getBytes());
+        Assert.assertEquals("Objects are recorded", 3, measurements.get(0).getObjects());
+        Assert.assertEquals("Unknown bytes are recorded", Measurement.UNKNOWN, measurements.get(1).getBytes());
+        Assert.assertTrue("Measurements were drained", metrics.drain().isEmpty());
+    }
+
+    @Test
+    public void testDisabled() {
+        Metrics metrics = Metrics.disabled();
+        metrics.start(Phase.CLONE, null).stop();
+
+        Assert.assertTrue("Nothing was recorded", metrics.drain().isEmpty());
+    }
+
+    @Test
+    public void testReport() throws IOException {
+        List<Measurement> measurements = new ArrayList<Measurement>();
+        measurements.add(new Measurement("foo", Phase.EXPORT, "test.war", 1000, 20, 1024, 3));
+        measurements.add(new Measurement("foo", Phase.READINESS_WAIT, "[a.war, b.war]", 1020, 500,
+                Measurement.UNKNOWN, 2));
+
+        File file = File.createTempFile("arquillian-metrics", ".csv");
+        try {
+            new MetricsReport(file).write(measurements);
+
+            List<String> lines = read(file);
+            Assert.assertEquals("Header and a line per measurement were written", 3, lines.size());
+            Assert.assertEquals("Header describes columns", MetricsReport.HEADER, lines.get(0));
+            Assert.assertEquals("Measurement is written", "foo,EXPORT,test.war,1000,20,1024,3", lines.get(1));
+            Assert.assertEquals("Subject with separator is quoted",
+                    "foo,READINESS_WAIT,\"[a.war, b.war]\",1020,500,-1,2", lines.get(2));
+        } finally {
+            file.delete();
+        }
+    }
+
+    private List<String> read(File file) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try {
+            List<String> lines = new ArrayList<String>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+            return lines;
+        } finally {
+            reader.close();
+        }
+    }
+}
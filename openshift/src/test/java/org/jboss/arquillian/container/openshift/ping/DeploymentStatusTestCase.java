@@ -0,0 +1,66 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2009, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.openshift.ping;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Properties;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+/**
+ * Tests the status document exchanged with the ping servlet
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class DeploymentStatusTestCase {
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Properties document = new Properties();
+        DeploymentStatus.DEPLOYED.store(document, "test.war", null);
+        DeploymentStatus.FAILED.store(document, "test=1.ear", "Services with missing dependencies");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        document.store(bytes, null);
+        Properties loaded = new Properties();
+        loaded.load(new ByteArrayInputStream(bytes.toByteArray()));
+
+        Assert.assertEquals("Deployed status was read", DeploymentStatus.DEPLOYED,
+                DeploymentStatus.of(loaded, "test.war"));
+        Assert.assertNull("Deployed archive has no failure", DeploymentStatus.getFailure(loaded, "test.war"));
+        Assert.assertEquals("Failed status was read", DeploymentStatus.FAILED,
+                DeploymentStatus.of(loaded, "test=1.ear"));
+        Assert.assertEquals("Failure was read", "Services with missing dependencies",
+                DeploymentStatus.getFailure(loaded, "test=1.ear"));
+    }
+
+    @Test
+    public void testUnknownDeployment() {
+        Properties document = new Properties();
+        document.setProperty("test.war" + DeploymentStatus.STATUS_SUFFIX, "unknown");
+
+        Assert.assertEquals("Unknown status is pending", DeploymentStatus.PENDING,
+                DeploymentStatus.of(document, "test.war"));
+        Assert.assertEquals("Missing deployment is pending", DeploymentStatus.PENDING,
+                DeploymentStatus.of(document, "missing.war"));
+    }
+}
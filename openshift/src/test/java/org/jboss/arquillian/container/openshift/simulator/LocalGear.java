@@ -0,0 +1,730 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.openshift.simulator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.util.FileUtils;
+import org.jboss.arquillian.container.openshift.OpenShiftContainerConfiguration;
+import org.jboss.arquillian.container.openshift.ping.AS7PingArchive;
+import org.jboss.arquillian.container.openshift.ping.DeploymentStatus;
+import org.jboss.arquillian.container.openshift.util.GitUtil;
+import org.jboss.arquillian.container.openshift.util.HexUtils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * An in-process stand-in of a JBoss AS7 gear, so the container can be tested and benchmarked without network access.
+ *
+ * <p>
+ * The Git repository of the application is a local bare repository reached through the file transport. As the file
+ * transport does not run hooks, pushes are noticed by watching the branch, which emulates the post-receive hook of the
+ * gear: the deployments directory of the pushed commit is copied to the runtime deployments directory and scanned in
+ * the same way the AS7 deployment scanner does. Zipped archives are deployed whenever their content changes, exploded
+ * archives when a {@code .dodeploy} marker is present. A {@code .deployed} or {@code .failed} marker is written after
+ * deployment and an {@code .undeployed} marker after an archive is removed.
+ * </p>
+ *
+ * <p>
+ * Deployed web archives are served by an embedded HTTP server, which also answers the readiness requests otherwise
+ * answered by the ping servlet. Servlets are not executed, only static content is served.
+ * </p>
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class LocalGear {
+    private static final Logger log = Logger.getLogger(LocalGear.class.getName());
+
+    private static final PersonIdent IDENTIFICATION = new PersonIdent("OpenShift", "openshift@localhost");
+
+    private static final String DEPLOYMENT_DIR = "deployments";
+
+    private static final String PING_CONTEXT = AS7PingArchive.ARCHIVE_NAME.substring(0,
+            AS7PingArchive.ARCHIVE_NAME.lastIndexOf('.'));
+
+    private static final String[] ARCHIVE_SUFFIXES = { ".war", ".ear", ".jar", ".sar", ".rar" };
+
+    private static final String DODEPLOY = ".dodeploy";
+
+    private static final String DEPLOYED = ".deployed";
+
+    private static final String FAILED = ".failed";
+
+    private static final String UNDEPLOYED = ".undeployed";
+
+    private static final long POLL_INTERVAL_MILLIS = 20;
+
+    private final String application;
+
+    private File directory;
+
+    private File deploymentsDirectory;
+
+    private Repository origin;
+
+    private HttpServer server;
+
+    private ExecutorService executor;
+
+    private Thread watcher;
+
+    private volatile boolean running;
+
+    private long deploymentDelayInMillis;
+
+    // blobs last copied to the runtime deployments directory
+    private final Map<String, ObjectId> checkedOut = new HashMap<String, ObjectId>();
+
+    private final Map<String, Deployment> deployments = new HashMap<String, Deployment>();
+
+    private final Map<String, String> failures = new HashMap<String, String>();
+
+    private ObjectId processedCommit;
+
+    /**
+     * Creates a gear
+     *
+     * @param application the name of the application
+     */
+    public LocalGear(String application) {
+        this.application = application;
+    }
+
+    /**
+     * Creates the repository of the application, starts watching it and starts the HTTP server
+     *
+     * @return Started gear
+     * @throws IOException if the gear cannot be created
+     */
+    public LocalGear start() throws IOException {
+        directory = File.createTempFile("arquillian-gear", "");
+        directory.delete();
+        deploymentsDirectory = new File(directory, "runtime/" + DEPLOYMENT_DIR);
+        FileUtils.mkdirs(deploymentsDirectory);
+
+        // the application is created with an empty deployments directory
+        File gitDir = new File(directory, application + ".git");
+        try {
+            Git git = Git.init().setBare(true).setDirectory(gitDir).call();
+            GitUtil gitUtil = new GitUtil(git);
+            gitUtil.begin().add(DEPLOYMENT_DIR + "/.gitkeep", new byte[0])
+                    .commit(IDENTIFICATION, "Creating template");
+            gitUtil.close();
+        } catch (GitAPIException e) {
+            throw new IOException("Unable to create repository of " + application + ": " + e.getMessage());
+        }
+        origin = Git.open(gitDir).getRepository();
+        processedCommit = origin.resolve(Constants.HEAD);
+
+        executor = Executors.newCachedThreadPool(new DaemonThreadFactory("arquillian-gear-http"));
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new RequestHandler());
+        server.setExecutor(executor);
+        server.start();
+
+        running = true;
+        watcher = new DaemonThreadFactory("arquillian-gear-watcher").newThread(new Runnable() {
+            @Override
+            public void run() {
+                watch();
+            }
+        });
+        watcher.start();
+
+        log.info("Local gear " + application + " started at " + getRemoteRepositoryUri() + " and http://"
+                + getHostName() + ":" + getHttpPort());
+        return this;
+    }
+
+    /**
+     * Stops the gear and deletes all its data
+     *
+     * @throws IOException if the data cannot be deleted
+     */
+    public void stop() throws IOException {
+        running = false;
+        if (watcher != null) {
+            watcher.interrupt();
+            try {
+                watcher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+        if (origin != null) {
+            origin.close();
+        }
+        if (directory != null) {
+            FileUtils.delete(directory, FileUtils.RECURSIVE | FileUtils.RETRY);
+        }
+    }
+
+    /**
+     * Points the configuration to this gear
+     *
+     * @param configuration the configuration
+     * @return Modified configuration
+     */
+    public OpenShiftContainerConfiguration configure(OpenShiftContainerConfiguration configuration) {
+        configuration.setNamespace("local");
+        configuration.setLogin("arquillian@localhost");
+        configuration.setApplication(application);
+        configuration.setSshUserName(application);
+        configuration.setRemoteRepositoryUri("file://" + directory.toURI().getPath() + "{application}.git");
+        configuration.setHostName(getHostName());
+        configuration.setHttpPort(getHttpPort());
+        return configuration;
+    }
+
+    /**
+     * Waits until the last pushed commit is deployed
+     *
+     * @param timeoutInMillis the timeout
+     * @return {@code true} if the last pushed commit was deployed within the timeout
+     * @throws IOException if the repository cannot be read
+     */
+    public boolean awaitPush(long timeoutInMillis) throws IOException {
+        long timeout = System.currentTimeMillis() + timeoutInMillis;
+        ObjectId pushed = origin.resolve(Constants.HEAD);
+        while (System.currentTimeMillis() < timeout) {
+            synchronized (this) {
+                if (pushed.equals(processedCommit)) {
+                    return true;
+                }
+            }
+            sleep(POLL_INTERVAL_MILLIS);
+        }
+        return false;
+    }
+
+    /**
+     * Makes deployment of the archive fail until the failure is cleared, as it would with a broken archive
+     *
+     * @param name the name of the archive
+     * @param failure the failure description, {@code null} clears the failure
+     */
+    public synchronized void setFailure(String name, String failure) {
+        if (failure == null) {
+            failures.remove(name);
+        } else {
+            failures.put(name, failure);
+        }
+    }
+
+    /**
+     * Sets time spent by deployment of each archive, so the gear behaves closer to a real server
+     *
+     * @param deploymentDelayInMillis the delay
+     */
+    public void setDeploymentDelayInMillis(long deploymentDelayInMillis) {
+        this.deploymentDelayInMillis = deploymentDelayInMillis;
+    }
+
+    /**
+     * @return the directory scanned for deployments, containing markers
+     */
+    public File getDeploymentsDirectory() {
+        return deploymentsDirectory;
+    }
+
+    /**
+     * @return the URI of the Git repository of the application
+     */
+    public String getRemoteRepositoryUri() {
+        return "file://" + origin.getDirectory().toURI().getPath();
+    }
+
+    /**
+     * @return the host name the HTTP server listens at
+     */
+    public String getHostName() {
+        return "127.0.0.1";
+    }
+
+    /**
+     * @return the port the HTTP server listens at
+     */
+    public int getHttpPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void watch() {
+        while (running) {
+            try {
+                ObjectId head = origin.resolve(Constants.HEAD);
+                if (head != null && !head.equals(processedCommit)) {
+                    checkout(head);
+                    scan();
+                    synchronized (this) {
+                        processedCommit = head;
+                    }
+                }
+            } catch (IOException e) {
+                log.log(Level.WARNING, "Unable to deploy content of " + application, e);
+            }
+            sleep(POLL_INTERVAL_MILLIS);
+        }
+    }
+
+    // copies the deployments directory of the commit, files removed by the scanner are copied again
+    private void checkout(ObjectId commit) throws IOException {
+        RevWalk walk = new RevWalk(origin);
+        TreeWalk treeWalk = new TreeWalk(origin);
+        try {
+            treeWalk.addTree(walk.parseCommit(commit).getTree());
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(PathFilter.create(DEPLOYMENT_DIR));
+
+            Map<String, ObjectId> blobs = new LinkedHashMap<String, ObjectId>();
+            while (treeWalk.next()) {
+                blobs.put(treeWalk.getPathString().substring(DEPLOYMENT_DIR.length() + 1), treeWalk.getObjectId(0));
+            }
+
+            for (Map.Entry<String, ObjectId> blob : blobs.entrySet()) {
+                File file = new File(deploymentsDirectory, blob.getKey());
+                if (!file.exists() || !blob.getValue().equals(checkedOut.get(blob.getKey()))) {
+                    FileUtils.mkdirs(file.getParentFile(), true);
+                    OutputStream os = new FileOutputStream(file);
+                    try {
+                        origin.open(blob.getValue()).copyTo(os);
+                    } finally {
+                        os.close();
+                    }
+                }
+            }
+            for (String path : checkedOut.keySet()) {
+                if (!blobs.containsKey(path)) {
+                    FileUtils.delete(new File(deploymentsDirectory, path), FileUtils.SKIP_MISSING);
+                }
+            }
+            deleteEmptyDirectories(deploymentsDirectory);
+
+            checkedOut.clear();
+            checkedOut.putAll(blobs);
+        } finally {
+            treeWalk.release();
+            walk.release();
+        }
+    }
+
+    // single pass of the deployment scanner
+    private void scan() throws IOException {
+        File[] files = deploymentsDirectory.listFiles();
+        for (File file : files) {
+            String name = file.getName();
+            if (!isArchive(name)) {
+                continue;
+            }
+            if (file.isFile()) {
+                byte[] content = read(file);
+                String hash = sha1(content);
+                Deployment deployed;
+                synchronized (this) {
+                    deployed = deployments.get(name);
+                }
+                if (deployed == null || !hash.equals(deployed.hash) || !marker(name, DEPLOYED).exists()) {
+                    deploy(name, hash, unzip(content));
+                }
+            } else if (marker(name, DODEPLOY).exists()) {
+                Map<String, byte[]> content = new HashMap<String, byte[]>();
+                collect(content, file, "");
+                deploy(name, null, content);
+                FileUtils.delete(marker(name, DODEPLOY));
+            }
+        }
+
+        // archives removed from the directory are undeployed
+        for (File file : files) {
+            String name = file.getName();
+            if (name.endsWith(DEPLOYED)) {
+                String archiveName = name.substring(0, name.length() - DEPLOYED.length());
+                if (!new File(deploymentsDirectory, archiveName).exists()) {
+                    undeploy(archiveName);
+                }
+            } else if (name.endsWith(FAILED)) {
+                String archiveName = name.substring(0, name.length() - FAILED.length());
+                if (!new File(deploymentsDirectory, archiveName).exists()) {
+                    synchronized (this) {
+                        deployments.remove(archiveName);
+                    }
+                    FileUtils.delete(file);
+                }
+            }
+        }
+    }
+
+    private void deploy(String name, String hash, Map<String, byte[]> content) throws IOException {
+        sleep(deploymentDelayInMillis);
+
+        String failure;
+        synchronized (this) {
+            failure = failures.get(name);
+        }
+        if (failure == null && content == null) {
+            failure = "Archive " + name + " is not a valid ZIP file";
+        }
+
+        // markers are in place before the readiness request is answered
+        FileUtils.delete(marker(name, failure == null ? FAILED : DEPLOYED), FileUtils.SKIP_MISSING);
+        FileUtils.delete(marker(name, UNDEPLOYED), FileUtils.SKIP_MISSING);
+        writeMarker(name, failure == null ? DEPLOYED : FAILED, failure == null ? "" : failure);
+
+        synchronized (this) {
+            deployments.put(name, new Deployment(hash, content, failure));
+        }
+
+        if (log.isLoggable(Level.FINE)) {
+            log.fine((failure == null ? "Deployed " : "Failed to deploy ") + name + " to local gear " + application
+                    + (failure == null ? "" : ": " + failure));
+        }
+    }
+
+    private void undeploy(String name) throws IOException {
+        synchronized (this) {
+            deployments.remove(name);
+        }
+        FileUtils.delete(marker(name, DEPLOYED), FileUtils.SKIP_MISSING);
+        writeMarker(name, UNDEPLOYED, "");
+        log.fine("Undeployed " + name + " from local gear " + application);
+    }
+
+    // the same as the ping servlet, except the server model is replaced by the state of the scanner
+    private void ping(HttpExchange exchange, Map<String, List<String>> parameters) throws IOException {
+        List<String> names = parameters.get("name");
+        if (names == null || names.isEmpty()) {
+            respond(exchange, 204, null);
+            return;
+        }
+
+        long wait = 0;
+        if (parameters.containsKey("wait")) {
+            wait = Long.parseLong(parameters.get("wait").get(0));
+        }
+        long timeout = System.currentTimeMillis() + wait;
+
+        Properties document = new Properties();
+        while (true) {
+            boolean deployed = true;
+            boolean failed = false;
+            for (String name : names) {
+                List<String> hash = parameters.get("hash." + name);
+                if (hash == null && names.size() == 1) {
+                    hash = parameters.get("hash");
+                }
+                DeploymentStatus status = getStatus(document, name, hash == null ? null : hash.get(0));
+                deployed &= status == DeploymentStatus.DEPLOYED;
+                failed |= status == DeploymentStatus.FAILED;
+            }
+
+            if (deployed) {
+                respond(exchange, 200, document);
+                return;
+            } else if (failed) {
+                respond(exchange, 409, document);
+                return;
+            } else if (System.currentTimeMillis() >= timeout) {
+                respond(exchange, 202, document);
+                return;
+            }
+            sleep(POLL_INTERVAL_MILLIS);
+        }
+    }
+
+    private synchronized DeploymentStatus getStatus(Properties document, String name, String hash) {
+        Deployment deployment = deployments.get(name);
+        DeploymentStatus status = DeploymentStatus.PENDING;
+        String failure = null;
+        if (deployment != null && (hash == null || deployment.hash == null || hash.equalsIgnoreCase(deployment.hash))) {
+            status = deployment.failure == null ? DeploymentStatus.DEPLOYED : DeploymentStatus.FAILED;
+            failure = deployment.failure;
+        }
+        status.store(document, name, failure);
+        return status;
+    }
+
+    private void serve(HttpExchange exchange, String context, String path) throws IOException {
+        byte[] content = null;
+        synchronized (this) {
+            for (Map.Entry<String, Deployment> entry : deployments.entrySet()) {
+                Deployment deployment = entry.getValue();
+                if (entry.getKey().endsWith(".war") && context.equals(getContextRoot(entry.getKey()))
+                        && deployment.failure == null) {
+                    content = deployment.getResource(path);
+                    break;
+                }
+            }
+        }
+
+        if (content == null) {
+            respond(exchange, 404, null);
+            return;
+        }
+        exchange.sendResponseHeaders(200, content.length);
+        OutputStream os = exchange.getResponseBody();
+        try {
+            os.write(content);
+        } finally {
+            os.close();
+        }
+    }
+
+    private void respond(HttpExchange exchange, int status, Properties document) throws IOException {
+        if (document == null) {
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        document.store(bytes, null);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain;charset=ISO-8859-1");
+        exchange.sendResponseHeaders(status, bytes.size());
+        OutputStream os = exchange.getResponseBody();
+        try {
+            bytes.writeTo(os);
+        } finally {
+            os.close();
+        }
+    }
+
+    private String getContextRoot(String archiveName) {
+        String contextRoot = archiveName.substring(0, archiveName.lastIndexOf('.'));
+        return "ROOT".equals(contextRoot) ? "" : contextRoot;
+    }
+
+    private boolean isArchive(String name) {
+        for (String suffix : ARCHIVE_SUFFIXES) {
+            if (name.endsWith(suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private File marker(String name, String suffix) {
+        return new File(deploymentsDirectory, name + suffix);
+    }
+
+    private void writeMarker(String name, String suffix, String content) throws IOException {
+        OutputStream os = new FileOutputStream(marker(name, suffix));
+        try {
+            os.write(content.getBytes("UTF-8"));
+        } finally {
+            os.close();
+        }
+    }
+
+    private void collect(Map<String, byte[]> content, File directory, String prefix) throws IOException {
+        for (File file : directory.listFiles()) {
+            if (file.isDirectory()) {
+                collect(content, file, prefix + file.getName() + "/");
+            } else {
+                content.put(prefix + file.getName(), read(file));
+            }
+        }
+    }
+
+    private boolean deleteEmptyDirectories(File directory) throws IOException {
+        boolean empty = true;
+        for (File file : directory.listFiles()) {
+            if (!file.isDirectory() || !deleteEmptyDirectories(file)) {
+                empty = false;
+            }
+        }
+        if (empty && !directory.equals(deploymentsDirectory)) {
+            FileUtils.delete(directory);
+        }
+        return empty;
+    }
+
+    // null if the content is not a ZIP file
+    private static Map<String, byte[]> unzip(byte[] archive) {
+        Map<String, byte[]> content = new HashMap<String, byte[]>();
+        ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(archive));
+        try {
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                if (!entry.isDirectory()) {
+                    content.put(entry.getName(), toByteArray(zis));
+                }
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        return content.isEmpty() ? null : content;
+    }
+
+    private static byte[] read(File file) throws IOException {
+        InputStream is = new FileInputStream(file);
+        try {
+            return toByteArray(is);
+        } finally {
+            is.close();
+        }
+    }
+
+    private static byte[] toByteArray(InputStream is) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = is.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String sha1(byte[] content) {
+        try {
+            return HexUtils.toHexString(MessageDigest.getInstance("SHA-1").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        }
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Map<String, List<String>> parseQuery(String query) throws IOException {
+        Map<String, List<String>> parameters = new HashMap<String, List<String>>();
+        if (query == null) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            String name = URLDecoder.decode(separator == -1 ? pair : pair.substring(0, separator), "UTF-8");
+            String value = separator == -1 ? "" : URLDecoder.decode(pair.substring(separator + 1), "UTF-8");
+            List<String> values = parameters.get(name);
+            if (values == null) {
+                values = new ArrayList<String>();
+                parameters.put(name, values);
+            }
+            values.add(value);
+        }
+        return parameters;
+    }
+
+    private class RequestHandler implements HttpHandler {
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                String path = exchange.getRequestURI().getPath().substring(1);
+                int slash = path.indexOf('/');
+                String context = slash == -1 ? path : path.substring(0, slash);
+                String resource = slash == -1 ? "" : path.substring(slash + 1);
+
+                // the ping archive has to be deployed to answer
+                if (PING_CONTEXT.equals(context) && "deploy".equals(resource)
+                        && getStatus(new Properties(), AS7PingArchive.ARCHIVE_NAME, null) == DeploymentStatus.DEPLOYED) {
+                    ping(exchange, parseQuery(exchange.getRequestURI().getRawQuery()));
+                } else {
+                    serve(exchange, context, resource);
+                }
+            } finally {
+                exchange.close();
+            }
+        }
+    }
+
+    private static class Deployment {
+        private final String hash;
+
+        private final Map<String, byte[]> content;
+
+        private final String failure;
+
+        Deployment(String hash, Map<String, byte[]> content, String failure) {
+            this.hash = hash;
+            this.content = content;
+            this.failure = failure;
+        }
+
+        // classes and descriptors are not public
+        byte[] getResource(String path) {
+            if (path.startsWith("WEB-INF/") || path.startsWith("META-INF/")) {
+                return null;
+            }
+            if (path.length() == 0 || path.endsWith("/")) {
+                path = path + "index.html";
+            }
+            return content.get(path);
+        }
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final String name;
+
+        DaemonThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2009, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.openshift.util;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.util.FileUtils;
+import org.jboss.arquillian.container.openshift.metrics.Measurement;
+import org.jboss.arquillian.container.openshift.metrics.Metrics;
+import org.jboss.arquillian.container.openshift.metrics.Phase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests index transactions on a local repository
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class GitTransactionTestCase {
+
+    private static final PersonIdent IDENTIFICATION = new PersonIdent("Arquillian", "arquillian@jboss.org");
+
+    private File directory;
+
+    private Git git;
+
+    private GitUtil gitUtil;
+
+    @Before
+    public void createRepository() throws IOException, GitAPIException {
+        directory = File.createTempFile("arquillian-git", "");
+        directory.delete();
+        git = Git.init().setDirectory(directory).call();
+        gitUtil = new GitUtil(git);
+
+        write("deployments/old.war");
+        write("deployments/old.war.deployed");
+        git.add().addFilepattern("deployments").call();
+        git.commit().setAuthor(IDENTIFICATION).setCommitter(IDENTIFICATION).setMessage("Initial").call();
+    }
+
+    @After
+    public void deleteRepository() throws IOException {
+        gitUtil.close();
+        FileUtils.delete(directory, FileUtils.RECURSIVE);
+    }
+
+    @Test
+    public void testSingleCommit() throws IOException, GitAPIException {
+        write("deployments/new.war");
+        write("deployments/new.war.dodeploy");
+
+        gitUtil.begin().add("deployments/new.war").add("deployments/new.war.dodeploy").remove("deployments/old.war")
+                .remove("deployments/old.war.deployed").commit(IDENTIFICATION, "Redeploy");
+
+        Assert.assertEquals("All changes were committed at once", 2, count(git.log().call().iterator()));
+
+        DirCache index = git.getRepository().readDirCache();
+        Assert.assertNotNull("New archive is in the index", index.getEntry("deployments/new.war"));
+        Assert.assertNotNull("New marker is in the index", index.getEntry("deployments/new.war.dodeploy"));
+        Assert.assertNull("Old archive is not in the index", index.getEntry("deployments/old.war"));
+        Assert.assertNull("Old marker is not in the index", index.getEntry("deployments/old.war.deployed"));
+    }
+
+    @Test
+    public void testLatestOperationWins() throws IOException, GitAPIException {
+        GitTransaction tx = gitUtil.begin().remove("deployments/old.war").add("deployments/old.war");
+        Assert.assertFalse("Addition is staged", tx.isEmpty());
+        tx.commit(IDENTIFICATION, "Keep");
+
+        Assert.assertNotNull("Archive is still in the index",
+                git.getRepository().readDirCache().getEntry("deployments/old.war"));
+    }
+
+    @Test
+    public void testBareRepository() throws IOException, GitAPIException {
+        File bareDirectory = File.createTempFile("arquillian-git", ".git");
+        bareDirectory.delete();
+        GitUtil bare = new GitUtil(Git.init().setBare(true).setDirectory(bareDirectory).call());
+        try {
+            Assert.assertTrue("Repository is bare", bare.isBare());
+
+            bare.begin().add("deployments/test.war", new byte[] { 1, 2, 3 }).add("deployments/test.war.dodeploy",
+                    new byte[0]).commit(IDENTIFICATION, "Deploy");
+            Assert.assertTrue("Archive was committed", bare.fileExists("deployments/test.war"));
+            Assert.assertTrue("Marker was committed", bare.fileExists("deployments/test.war.dodeploy"));
+
+            bare.begin().remove("deployments/test.war").remove("deployments/test.war.dodeploy")
+                    .commit(IDENTIFICATION, "Undeploy");
+            Assert.assertFalse("Archive was removed", bare.fileExists("deployments/test.war"));
+            Assert.assertFalse("Marker was removed", bare.fileExists("deployments/test.war.dodeploy"));
+        } finally {
+            bare.close();
+            FileUtils.delete(bareDirectory, FileUtils.RECURSIVE);
+        }
+    }
+
+    @Test
+    public void testMeasuredCommit() throws IOException, GitAPIException {
+        Metrics metrics = new Metrics("test");
+        gitUtil.setMetrics(metrics);
+
+        write("deployments/new.war");
+        gitUtil.begin().add("deployments/new.war").remove("deployments/old.war").commit(IDENTIFICATION, "Redeploy");
+
+        List<Measurement> measurements = metrics.drain();
+        Assert.assertEquals("Staging and commit were measured", 2, measurements.size());
+        Assert.assertEquals("Staging was measured first", Phase.STAGE, measurements.get(0).getPhase());
+        Assert.assertEquals("Both changed paths were staged", 2, measurements.get(0).getObjects());
+        Assert.assertEquals("Commit was measured", Phase.COMMIT, measurements.get(1).getPhase());
+    }
+
+    @Test
+    public void testPushedObjectId() throws IOException, GitAPIException {
+        Assert.assertNull("Nothing was pushed yet", gitUtil.getPushedObjectId("deployments/old.war"));
+
+        // pretend the current commit was cloned
+        gitUtil.markSynchronized();
+
+        Assert.assertEquals("Pushed archive has the id of its content",
+                gitUtil.getBlobId("deployments/old.war".getBytes("UTF-8")),
+                gitUtil.getPushedObjectId("deployments/old.war"));
+        Assert.assertNull("Missing file has no id", gitUtil.getPushedObjectId("deployments/new.war"));
+
+        gitUtil.begin().remove("deployments/old.war").commit(IDENTIFICATION, "Undeploy");
+        Assert.assertNull("Removal was not pushed yet", gitUtil.getPushedObjectId("deployments/old.war"));
+    }
+
+    @Test
+    public void testPushedObjectIdOfBareClone() throws IOException, GitAPIException {
+        File originDirectory = File.createTempFile("arquillian-git", ".git");
+        originDirectory.delete();
+        File cloneDirectory = File.createTempFile("arquillian-git", ".git");
+        cloneDirectory.delete();
+
+        Git origin = Git.init().setBare(true).setDirectory(originDirectory).call();
+        GitUtil bare = null;
+        try {
+            String branch = Constants.R_HEADS + git.getRepository().getBranch();
+            git.push().setRemote(originDirectory.toURI().toString()).setRefSpecs(new RefSpec(branch + ":" + branch))
+                    .call();
+
+            // bare clone has no tracking branch
+            bare = new GitUtil(Git.cloneRepository().setURI(originDirectory.toURI().toString()).setBare(true)
+                    .setDirectory(cloneDirectory).call());
+            bare.markSynchronized();
+            Assert.assertEquals("Cloned archive has the id of its content",
+                    bare.getBlobId("deployments/old.war".getBytes("UTF-8")),
+                    bare.getPushedObjectId("deployments/old.war"));
+
+            bare.begin().add("deployments/old.war", new byte[] { 1, 2, 3 }).commit(IDENTIFICATION, "Redeploy");
+            Assert.assertNull("Change was not pushed yet", bare.getPushedObjectId("deployments/old.war"));
+
+            bare.push(null);
+            Assert.assertEquals("Pushed archive has the id of its new content",
+                    bare.getBlobId(new byte[] { 1, 2, 3 }), bare.getPushedObjectId("deployments/old.war"));
+        } finally {
+            if (bare != null) {
+                bare.close();
+            }
+            origin.getRepository().close();
+            FileUtils.delete(cloneDirectory, FileUtils.RECURSIVE);
+            FileUtils.delete(originDirectory, FileUtils.RECURSIVE);
+        }
+    }
+
+    private void write(String path) throws IOException {
+        File file = new File(directory, path);
+        file.getParentFile().mkdirs();
+        FileWriter writer = new FileWriter(file);
+        try {
+            writer.write(path);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private int count(Iterator<RevCommit> commits) {
+        int count = 0;
+        while (commits.hasNext()) {
+            commits.next();
+            count++;
+        }
+        return count;
+    }
+}